@@ -0,0 +1,75 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64Combiner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较CRC64.combine和CRC64Combiner合并一个文件所有分段的CRC64的耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CRC64CombineBenchmark {
+
+    @Param({"128", "4096"})
+    private int rangeCount;
+
+    @Param({"134217728"})
+    private long rangeSize;
+
+    private long[] crcs;
+    private long[] lengths;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        this.crcs = new long[this.rangeCount];
+        this.lengths = new long[this.rangeCount];
+        for (int i = 0; i < this.rangeCount; i++) {
+            this.crcs[i] = random.nextLong();
+            this.lengths[i] = this.rangeSize;
+        }
+        // 最后一段通常不足一个分段大小
+        this.lengths[this.rangeCount - 1] = this.rangeSize / 3;
+    }
+
+    @Benchmark
+    public long crc64Combine() {
+        long crc = 0;
+        for (int i = 0; i < this.rangeCount; i++) {
+            crc = CRC64.combine(crc, this.crcs[i], this.lengths[i]);
+        }
+        return crc;
+    }
+
+    @Benchmark
+    public long combinerPairwise() {
+        long crc = 0;
+        for (int i = 0; i < this.rangeCount; i++) {
+            crc = CRC64Combiner.combine(crc, this.crcs[i], this.lengths[i]);
+        }
+        return crc;
+    }
+
+    @Benchmark
+    public long combinerBulk() {
+        return CRC64Combiner.combine(this.crcs, this.lengths);
+    }
+}
@@ -0,0 +1,53 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64Combiner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并两个CRC64的耗时随第二段长度的变化，两种实现的耗时都和长度的二进制位数有关。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CRC64CombineLengthBenchmark {
+
+    @Param({"1", "4096", "1048576", "134217728", "5368709120", "1099511627776"})
+    private long length;
+
+    private long crc1;
+    private long crc2;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        this.crc1 = random.nextLong();
+        this.crc2 = random.nextLong();
+    }
+
+    @Benchmark
+    public long crc64Combine() {
+        return CRC64.combine(this.crc1, this.crc2, this.length);
+    }
+
+    @Benchmark
+    public long combinerPairwise() {
+        return CRC64Combiner.combine(this.crc1, this.crc2, this.length);
+    }
+}
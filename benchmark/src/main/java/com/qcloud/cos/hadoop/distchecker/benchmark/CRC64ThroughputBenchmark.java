@@ -0,0 +1,90 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.NativeCRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.SlicingCRC64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较各个CRC64实现在不同缓冲区大小下的耗时，缓冲区大小除以每次的耗时即为吞吐。
+ * native需要通过-jvmArgsAppend -Djava.library.path=...指定本地库的目录，本地库不可用时这一组会失败。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CRC64ThroughputBenchmark {
+
+    @Param({"crc64", "slicing", "native"})
+    private String engine;
+
+    @Param({"64", "1024", "65536", "1048576", "16777216"})
+    private int bufferSize;
+
+    private byte[] heapBuffer;
+    private ByteBuffer directBuffer;
+    private CRC64 crc64;
+    private SlicingCRC64 slicingCrc64;
+
+    @Setup
+    public void setup() {
+        this.heapBuffer = new byte[this.bufferSize];
+        new Random(0).nextBytes(this.heapBuffer);
+        this.directBuffer = ByteBuffer.allocateDirect(this.bufferSize);
+        this.directBuffer.put(this.heapBuffer);
+
+        switch (this.engine) {
+            case "crc64":
+                this.crc64 = new CRC64();
+                break;
+            case "slicing":
+                this.slicingCrc64 = new SlicingCRC64();
+                break;
+            case "native":
+                if (!NativeCRC64.isAvailable()) {
+                    throw new IllegalStateException("The native CRC64 library is not available.");
+                }
+                this.slicingCrc64 = new NativeCRC64();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown CRC64 engine: " + this.engine);
+        }
+    }
+
+    @Benchmark
+    public long heap() {
+        if (null != this.crc64) {
+            this.crc64.update(this.heapBuffer, 0, this.bufferSize);
+            return this.crc64.getValue();
+        }
+        this.slicingCrc64.update(this.heapBuffer, 0, this.bufferSize);
+        return this.slicingCrc64.getValue();
+    }
+
+    @Benchmark
+    public long direct() {
+        this.directBuffer.clear();
+        if (null != this.crc64) {
+            this.crc64.update(this.directBuffer);
+            return this.crc64.getValue();
+        }
+        this.slicingCrc64.update(this.directBuffer);
+        return this.slicingCrc64.getValue();
+    }
+}
@@ -0,0 +1,133 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.CheckReport;
+import com.qcloud.cos.hadoop.distchecker.CheckResult;
+import com.qcloud.cos.hadoop.distchecker.Constants;
+import com.qcloud.cos.hadoop.distchecker.FileChecker;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CheckMapper.map中检查一个源文件的端到端耗时：查询两端的元数据、转换路径、完整读取源文件计算CRC64并比较。
+ * 源文件和目的文件都在本地临时目录中，目的文件系统是{@link LocalCosFileSystem}，
+ * 关闭了元数据快速校验，每个源文件都会被完整读取。源文件在第一次读取后位于页缓存中，测得的是CPU和拷贝的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileCheckerBenchmark {
+    private static final String SOURCE_SCHEME = "benchsrc";
+    private static final String TARGET_SCHEME = "benchcos";
+    private static final long TOTAL_BYTES = 256L * 1024 * 1024;
+    private static final int MAX_FILE_COUNT = 1024;
+
+    /**
+     * 带主机名的本地文件系统，作为源文件系统，返回的元数据中没有CRC64。
+     */
+    public static class LocalSourceFileSystem extends LocalCosFileSystem {
+        @Override
+        protected FileStatus toFileStatus(FileStatus fileStatus, boolean withCrc64) {
+            return fileStatus;
+        }
+    }
+
+    @Param({"4096", "1048576", "67108864"})
+    private int fileSize;
+
+    @Param({"true", "false"})
+    private boolean crc64Native;
+
+    private File workDir;
+    private FileChecker fileChecker;
+    private String[] sourceFilePaths;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        this.workDir = Files.createTempDirectory("distchecker-benchmark").toFile();
+        File sourceDir = new File(this.workDir, "source");
+        File targetDir = new File(this.workDir, "target");
+        int fileCount = (int) Math.max(1, Math.min(MAX_FILE_COUNT, TOTAL_BYTES / this.fileSize));
+
+        Random random = new Random(0);
+        byte[] content = new byte[this.fileSize];
+        this.sourceFilePaths = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            random.nextBytes(content);
+            String relativePath = String.format("dir_%d/part-%05d", i % 16, i);
+            writeFile(new File(sourceDir, relativePath), content);
+            writeFile(new File(targetDir, relativePath), content);
+            this.sourceFilePaths[i] = SOURCE_SCHEME + "://local" + sourceDir.getAbsolutePath() + "/" + relativePath;
+        }
+
+        Configuration configuration = new Configuration();
+        configuration.setClass("fs." + SOURCE_SCHEME + ".impl", LocalSourceFileSystem.class, FileSystem.class);
+        configuration.setClass("fs." + TARGET_SCHEME + ".impl", LocalCosFileSystem.class, FileSystem.class);
+        configuration.set(Constants.SOURCE_WORK_DIR_KEY, SOURCE_SCHEME + "://local" + sourceDir.getAbsolutePath());
+        configuration.set(Constants.TARGET_WORK_DIR_KEY, TARGET_SCHEME + "://bucket" + targetDir.getAbsolutePath());
+        configuration.setBoolean(Constants.METADATA_CHECKSUM_ENABLED_KEY, false);
+        configuration.setBoolean(Constants.CRC64_NATIVE_ENABLED_KEY, this.crc64Native);
+        this.fileChecker = new FileChecker(configuration);
+
+        // 预先检查一遍，让目的文件的CRC64进入缓存，源文件进入页缓存
+        for (String sourceFilePath : this.sourceFilePaths) {
+            CheckReport checkReport = this.fileChecker.check(sourceFilePath);
+            if (checkReport.getCheckResult() != CheckResult.SUCCESS) {
+                throw new IllegalStateException("Unexpected check report: " + checkReport);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try {
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+            FileSystem.closeAll();
+        } finally {
+            FileUtil.fullyDelete(this.workDir);
+        }
+    }
+
+    @Benchmark
+    public CheckReport check() throws IOException {
+        String sourceFilePath = this.sourceFilePaths[this.next];
+        this.next = (this.next + 1) % this.sourceFilePaths.length;
+        return this.fileChecker.check(sourceFilePath);
+    }
+
+    private static void writeFile(File file, byte[] content) throws IOException {
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Can not create the directory: " + file.getParentFile());
+        }
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(content);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.SlicingCRC64;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CosNFileStatus;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.fs.permission.FsPermission;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用本地文件模拟COS的文件系统，返回带CRC64的CosNFileStatus，文件系统的URI就是初始化时传入的URI。
+ * COS的HEAD请求直接返回对象的CRC64，这里按路径、长度和修改时间缓存算好的CRC64，避免计入基准测试的耗时。
+ */
+public class LocalCosFileSystem extends RawLocalFileSystem {
+    private static final String OWNER = System.getProperty("user.name");
+    private static final Map<String, String> CRC64_CACHE = new ConcurrentHashMap<>();
+
+    private URI uri;
+
+    @Override
+    public void initialize(URI name, Configuration conf) throws IOException {
+        super.initialize(name, conf);
+        this.uri = URI.create(name.getScheme() + "://" + name.getAuthority() + "/");
+    }
+
+    @Override
+    public URI getUri() {
+        // RawLocalFileSystem的构造函数中会用到URI，这时还没有初始化
+        return null == this.uri ? super.getUri() : this.uri;
+    }
+
+    @Override
+    public String getScheme() {
+        return this.getUri().getScheme();
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path f) throws IOException {
+        return this.toFileStatus(super.getFileStatus(f), true);
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) throws IOException {
+        // 和COS一样，列目录得到的元数据中没有CRC64
+        FileStatus[] fileStatuses = super.listStatus(f);
+        for (int i = 0; i < fileStatuses.length; i++) {
+            fileStatuses[i] = this.toFileStatus(fileStatuses[i], false);
+        }
+        return fileStatuses;
+    }
+
+    protected FileStatus toFileStatus(FileStatus fileStatus, boolean withCrc64) throws IOException {
+        String crc64 = null;
+        if (withCrc64 && fileStatus.isFile()) {
+            String cacheKey = fileStatus.getPath() + ":" + fileStatus.getLen() + ":" + fileStatus.getModificationTime();
+            crc64 = CRC64_CACHE.get(cacheKey);
+            if (null == crc64) {
+                crc64 = Long.toUnsignedString(this.computeCrc64(fileStatus.getPath()));
+                CRC64_CACHE.put(cacheKey, crc64);
+            }
+        }
+        // 本地文件的权限信息需要按file协议的路径加载，COS也不返回权限信息，这里使用默认值
+        FsPermission permission = fileStatus.isDirectory() ? FsPermission.getDirDefault()
+                : FsPermission.getFileDefault();
+        return new CosNFileStatus(fileStatus.getLen(), fileStatus.isDirectory(), 1, fileStatus.getBlockSize(),
+                fileStatus.getModificationTime(), fileStatus.getAccessTime(), permission,
+                OWNER, OWNER, fileStatus.getPath(), null, crc64, null, null);
+    }
+
+    private long computeCrc64(Path path) throws IOException {
+        SlicingCRC64 crc64 = new SlicingCRC64();
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream inputStream = new FileInputStream(this.pathToFile(path))) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) > 0) {
+                crc64.update(buffer, 0, bytesRead);
+            }
+        }
+        return crc64.getValue();
+    }
+}
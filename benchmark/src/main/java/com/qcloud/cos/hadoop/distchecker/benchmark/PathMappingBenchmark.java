@@ -0,0 +1,72 @@
+package com.qcloud.cos.hadoop.distchecker.benchmark;
+
+import com.qcloud.cos.hadoop.distchecker.PathMapper;
+import com.qcloud.cos.hadoop.distchecker.PathUtils;
+import org.apache.hadoop.fs.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 源路径转换成目的路径的耗时，每个Mapper对每个源文件都要转换一次。
+ * convertSourcePathToTargetPath每次重新解析工作目录，pathMapper复用同一个{@link PathMapper}。
+ * depth是源文件相对于源工作目录的层数。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathMappingBenchmark {
+    private static final int PATH_COUNT = 1024;
+
+    @Param({"1", "4", "16"})
+    private int depth;
+
+    private Path sourceWorkingPath;
+    private Path targetWorkingPath;
+    private Path[] sourcePaths;
+    private PathMapper pathMapper;
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.sourceWorkingPath = new Path("hdfs://10.0.0.3:9000/user/hadoop/warehouse");
+        this.targetWorkingPath = new Path("cosn://examplebucket-1250000000/backup/warehouse");
+        this.pathMapper = new PathMapper(this.sourceWorkingPath, this.targetWorkingPath);
+        this.sourcePaths = new Path[PATH_COUNT];
+        for (int i = 0; i < PATH_COUNT; i++) {
+            StringBuilder builder = new StringBuilder(this.sourceWorkingPath.toString());
+            for (int level = 1; level < this.depth; level++) {
+                builder.append("/dir_").append(level).append('_').append(i % 7);
+            }
+            builder.append("/part-").append(String.format("%05d", i));
+            this.sourcePaths[i] = new Path(builder.toString());
+        }
+    }
+
+    @Benchmark
+    public Path convertSourcePathToTargetPath() {
+        Path sourcePath = this.sourcePaths[this.next];
+        this.next = (this.next + 1) % PATH_COUNT;
+        return PathUtils.convertSourcePathToTargetPath(sourcePath, this.sourceWorkingPath, this.targetWorkingPath);
+    }
+
+    @Benchmark
+    public Path pathMapper() {
+        Path sourcePath = this.sourcePaths[this.next];
+        this.next = (this.next + 1) % PATH_COUNT;
+        return this.pathMapper.getTargetPath(sourcePath);
+    }
+}
@@ -1,19 +1,36 @@
 package com.qcloud.cos.hadoop.distchecker;
 
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
+import org.apache.hadoop.mapreduce.lib.input.NLineInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 public class App extends Configured implements Tool {
     private static final Logger LOG = LoggerFactory.getLogger(App.class);
@@ -22,6 +39,19 @@ public class App extends Configured implements Tool {
 
     private static final int argsNumber = 4;
 
+    // 由作业自己列出源目录时，每一轮的检查报告输出到round-xxxxx目录中
+    private static final String ROUND_OUTPUT_PREFIX = "round-";
+    private static final String ROOTS_FILE_NAME = "roots";
+    // 续跑时关联源文件列表和上一次的检查报告的中间结果，输出到检查报告输出路径加上这个后缀的目录中
+    private static final String RESUME_PATH_SUFFIX = "_resume";
+    // 归并源目录和目的目录时需要列出的子项，写到检查报告输出路径加上这个后缀的目录中
+    private static final String DIFF_PATH_SUFFIX = "_diff";
+    private static final String SOURCE_ROOTS_FILE_NAME = "source-roots";
+    private static final String TARGET_ROOTS_FILE_NAME = "target-roots";
+    // 目录摘要输出到检查报告输出路径下的这个目录中，文件名为digest-r-xxxxx
+    private static final String DIGEST_DIR_NAME = "digest";
+    private static final String OUTPUT_BASE_NAME_KEY = "mapreduce.output.basename";
+
     public String usage() {
         return "[source directory] [source file list] [target directory] [result output path]";
     }
@@ -61,25 +91,497 @@ public class App extends Configured implements Tool {
 
         // 检查源工作目录是否存在
         this.checkWorkDirExists(sourceDirectory);
-        this.getConf().set("hadoop.cos.dist.checker.source.work.dir", sourceDirectory);
+        this.getConf().set(Constants.SOURCE_WORK_DIR_KEY, sourceDirectory);
 
         // 检查目标工作目录是否存在
         this.checkWorkDirExists(targetDirectory);
-        this.getConf().set("hadoop.cos.dist.checker.target.work.dir", targetDirectory);
+        this.getConf().set(Constants.TARGET_WORK_DIR_KEY, targetDirectory);
+
+        if (this.getConf().getBoolean(Constants.METADATA_CHECKSUM_ENABLED_KEY,
+                Constants.DEFAULT_METADATA_CHECKSUM_ENABLED)
+                && null == this.getConf().get(Constants.DFS_CHECKSUM_COMBINE_MODE_KEY)) {
+            // 让HDFS返回与块大小无关的COMPOSITE-CRC32C，才能与其他文件系统的校验值比较
+            this.getConf().set(Constants.DFS_CHECKSUM_COMBINE_MODE_KEY,
+                    Constants.DFS_CHECKSUM_COMBINE_MODE_COMPOSITE_CRC);
+        }
+
+        String catalogInput = this.getConf().get(Constants.CATALOG_INPUT_KEY);
+        String catalogOutput = this.getConf().get(Constants.CATALOG_OUTPUT_KEY);
+        if (null != catalogInput && null != catalogOutput && new Path(catalogInput).equals(new Path(catalogOutput))) {
+            throw new IOException(String.format("The catalog output [%s] can not be the same as the catalog input.",
+                    catalogOutput));
+        }
+
+        String resumeFrom = this.getConf().get(Constants.RESUME_FROM_KEY);
+        if (null != resumeFrom) {
+            if (this.getConf().getBoolean(Constants.SOURCE_LISTING_ENABLED_KEY,
+                    Constants.DEFAULT_SOURCE_LISTING_ENABLED)) {
+                throw new IOException("Resuming is not supported when the job lists the source directory itself.");
+            }
+            if (new Path(resumeFrom).equals(new Path(resultOutputPath))) {
+                throw new IOException(String.format(
+                        "The result output path [%s] can not be the same as the previous one.", resultOutputPath));
+            }
+        }
+
+        boolean sequenceList = CopyListingCheckMapper.isSequenceList(this.getConf());
+        if (sequenceList && (null != resumeFrom || this.getConf().getBoolean(Constants.SOURCE_LISTING_ENABLED_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_ENABLED))) {
+            throw new IOException(String.format("The %s=%s can not be used when resuming or listing the source "
+                    + "directory.", Constants.SOURCE_LIST_FORMAT_KEY, CopyListingCheckMapper.SOURCE_LIST_FORMAT_SEQUENCE));
+        }
+
+        boolean targetDiff = this.getConf().getBoolean(Constants.TARGET_DIFF_ENABLED_KEY,
+                Constants.DEFAULT_TARGET_DIFF_ENABLED);
+        if (targetDiff && (null != resumeFrom || sequenceList
+                || this.getConf().getBoolean(Constants.SOURCE_LISTING_ENABLED_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_ENABLED)
+                || this.getConf().getLong(Constants.LARGE_FILE_THRESHOLD_KEY,
+                Constants.DEFAULT_LARGE_FILE_THRESHOLD) > 0)) {
+            throw new IOException(String.format("The %s can not be used when resuming, listing the source directory, "
+                    + "reading a sequence file list or splitting the large files.",
+                    Constants.TARGET_DIFF_ENABLED_KEY));
+        }
+
+        boolean local = this.getConf().getBoolean(Constants.LOCAL_ENABLED_KEY, Constants.DEFAULT_LOCAL_ENABLED);
+        if (local && (null != resumeFrom || sequenceList || targetDiff || null != catalogOutput
+                || this.getConf().getBoolean(Constants.SOURCE_LISTING_ENABLED_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_ENABLED)
+                || this.getConf().getLong(Constants.LARGE_FILE_THRESHOLD_KEY,
+                Constants.DEFAULT_LARGE_FILE_THRESHOLD) > 0)) {
+            // 这些功能需要额外的MapReduce作业或者MultipleOutputs
+            throw new IOException(String.format("The %s can only be used with a text source file list, without "
+                    + "resuming, listing, diffing, splitting the large files or writing the catalog.",
+                    Constants.LOCAL_ENABLED_KEY));
+        }
+
+        if (new SamplingPlan(this.getConf()).isEnabled() && this.getConf().getLong(Constants.LARGE_FILE_THRESHOLD_KEY,
+                Constants.DEFAULT_LARGE_FILE_THRESHOLD) > 0) {
+            // 切分到多个map任务上的大文件需要完整读取，抽样检查时应当只比较大文件的部分数据
+            throw new IOException(String.format("The %s can not be used together with the sampling check.",
+                    Constants.LARGE_FILE_THRESHOLD_KEY));
+        }
+
+        boolean status;
+        List<Path> catalogEntriesPaths = new ArrayList<>();
+        Path metricsPath;
+        CheckSummary checkSummary = new CheckSummary();
+        if (targetDiff) {
+            // 第一个参数为需要比较的源目录，同时列出它和对应的目的目录
+            status = this.runTargetDiff(sourceFileList, new Path(resultOutputPath), checkSummary);
+            catalogEntriesPaths.add(new Path(resultOutputPath, ChecksumCatalog.NAMED_OUTPUT + "-*"));
+            metricsPath = new Path(resultOutputPath, CheckMetrics.METRICS_FILE_PREFIX + "-*");
+        } else if (this.getConf().getBoolean(Constants.SOURCE_LISTING_ENABLED_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_ENABLED)) {
+            // 不需要预先生成源文件列表，第一个参数为需要列出的源目录
+            status = this.runSourceListing(sourceFileList, new Path(resultOutputPath), checkSummary);
+            catalogEntriesPaths.add(new Path(resultOutputPath, App.ROUND_OUTPUT_PREFIX + "*/"
+                    + ChecksumCatalog.NAMED_OUTPUT + "-*"));
+            metricsPath = new Path(resultOutputPath, App.ROUND_OUTPUT_PREFIX + "*/"
+                    + CheckMetrics.METRICS_FILE_PREFIX + "-*");
+        } else {
+            Path resumePath = null;
+            boolean hasInput = true;
+            if (null != resumeFrom) {
+                // 先沿用上一次已经有确定结果的检查报告，只检查剩余的源文件
+                resumePath = new Path(resultOutputPath).suffix(App.RESUME_PATH_SUFFIX);
+                if (!this.runResumeJoin(sourceFileList, new Path(resumeFrom), resumePath, checkSummary)) {
+                    return 1;
+                }
+                Path remainingPath = new Path(resumePath, ResumeJoinReducer.REMAINING_NAMED_OUTPUT + "-*");
+                FileStatus[] remainingFiles = remainingPath.getFileSystem(this.getConf()).globStatus(remainingPath);
+                hasInput = null != remainingFiles && remainingFiles.length > 0;
+                sourceFileList = remainingPath.toString();
+            }
+
+            if (hasInput && local) {
+                // 在当前JVM中检查，不提交作业
+                status = new LocalCheckRunner(this.getConf()).run(this.newCheckJob(App.name + "-local"),
+                        new Path(sourceFileList), new Path(resultOutputPath), checkSummary);
+            } else if (hasInput) {
+                Job job = this.newCheckJob(App.name);
+                if (sequenceList) {
+                    // 源文件列表中已经有源文件的元数据，例如DistCp输出的fileList.seq
+                    job.setInputFormatClass(SequenceFileInputFormat.class);
+                    job.setMapperClass(CopyListingCheckMapper.class);
+                    job.setNumReduceTasks(0);
+                } else if (this.getConf().getLong(Constants.LARGE_FILE_THRESHOLD_KEY,
+                        Constants.DEFAULT_LARGE_FILE_THRESHOLD) > 0) {
+                    // 大文件切分到多个map任务上计算CRC64，由reduce阶段合并后再比较
+                    job.setInputFormatClass(FileRangeInputFormat.class);
+                    job.setMapperClass(RangeCheckMapper.class);
+                    job.setMapOutputKeyClass(Text.class);
+                    job.setMapOutputValueClass(RangeChecksum.class);
+                    job.setReducerClass(RangeCombineReducer.class);
+                    MultipleOutputs.addNamedOutput(job, RangeCheckMapper.REPORT_NAMED_OUTPUT,
+                            job.getOutputFormatClass(), Text.class, CheckReportWriter.getValueClass(this.getConf()));
+                } else {
+                    if (this.getConf().getBoolean(Constants.LOCALITY_SPLIT_ENABLED_KEY,
+                            Constants.DEFAULT_LOCALITY_SPLIT_ENABLED)) {
+                        // 按照源文件数据块所在的节点切分源文件列表
+                        job.setInputFormatClass(LocalityAwareFileListInputFormat.class);
+                    } else if (this.getConf().getBoolean(Constants.BALANCED_SPLIT_ENABLED_KEY,
+                            Constants.DEFAULT_BALANCED_SPLIT_ENABLED)) {
+                        // 按照需要读取的字节数均衡切分源文件列表
+                        job.setInputFormatClass(BalancedFileListInputFormat.class);
+                    } else {
+                        job.setInputFormatClass(TextInputFormat.class);
+                    }
+                    job.setMapperClass(CheckMapper.class);
+                    job.setNumReduceTasks(0);               // 这个作业不需要reduce阶段
+                }
+
+                FileInputFormat.addInputPath(job, new Path(sourceFileList));
+                FileOutputFormat.setOutputPath(job, new Path(resultOutputPath));
 
-        Job job = Job.getInstance(this.getConf(), App.name);
+                status = job.waitForCompletion(true);
+                if (status) {
+                    checkSummary.add(job.getCounters());
+                }
+            } else {
+                LOG.info("All the source files have been checked in [{}].", resumeFrom);
+                Path outputPath = new Path(resultOutputPath);
+                status = outputPath.getFileSystem(this.getConf()).mkdirs(outputPath);
+            }
+            if (status && null != resumePath) {
+                this.moveResumedReports(resumePath, new Path(resultOutputPath));
+                catalogEntriesPaths.addAll(App.getPreviousOutputPaths(new Path(resumeFrom),
+                        ChecksumCatalog.NAMED_OUTPUT + "-"));
+            }
+            catalogEntriesPaths.add(new Path(resultOutputPath, ChecksumCatalog.NAMED_OUTPUT + "-*"));
+            metricsPath = new Path(resultOutputPath, CheckMetrics.METRICS_FILE_PREFIX + "-*");
+        }
+
+        if (status) {
+            // 汇总各个检查结果的文件数和字节数
+            Path summaryPath = new Path(resultOutputPath, CheckSummary.SUMMARY_FILE_NAME);
+            checkSummary.write(summaryPath.getFileSystem(this.getConf()), summaryPath);
+            System.out.print(checkSummary);
+            // 汇总所有任务各阶段的耗时分布
+            System.out.print(CheckMetrics.merge(metricsPath.getFileSystem(this.getConf()), metricsPath));
+        }
+
+        if (status && this.getConf().getBoolean(Constants.DIGEST_ENABLED_KEY, Constants.DEFAULT_DIGEST_ENABLED)) {
+            status = this.runDigest(new Path(resultOutputPath));
+        }
+
+        if (status && null != catalogOutput) {
+            status = this.mergeCatalog(catalogInput, catalogEntriesPaths, catalogOutput);
+        }
+
+        return status ? 0 : 1;
+    }
+
+    private Job newCheckJob(String jobName) throws IOException {
+        Job job = Job.getInstance(this.getConf(), jobName);
         job.setJarByClass(App.class);
-        job.setInputFormatClass(TextInputFormat.class);
-        job.setOutputFormatClass(TextOutputFormat.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(CheckReportWriter.getValueClass(this.getConf()));
+        if (CheckReportWriter.isBinary(this.getConf())) {
+            job.setOutputFormatClass(CheckRecordOutputFormat.class);
+            if (null == this.getConf().get(FileOutputFormat.COMPRESS)) {
+                // 相邻记录的路径前缀大多相同，默认按块压缩
+                FileOutputFormat.setCompressOutput(job, true);
+                SequenceFileOutputFormat.setOutputCompressionType(job, SequenceFile.CompressionType.BLOCK);
+            }
+        } else {
+            job.setOutputFormatClass(TextOutputFormat.class);
+        }
+
+        if (null != this.getConf().get(Constants.CATALOG_OUTPUT_KEY)) {
+            // 检查过程中得到的源文件CRC64先写到检查报告的输出目录中，作业结束后再合并成新的校验值目录
+            MultipleOutputs.addNamedOutput(job, ChecksumCatalog.NAMED_OUTPUT, SequenceFileOutputFormat.class,
+                    Text.class, CatalogEntry.class);
+        }
+        return job;
+    }
 
-        job.setMapperClass(CheckMapper.class);
-        job.setNumReduceTasks(0);               // 这个作业不需要reduce阶段
+    /**
+     * 分轮并行列出源目录并检查列出的文件。
+     * 每一轮的map任务按行读取需要列出的目录，列出的条目数超过上限后将剩余的子目录输出到本轮的输出目录中，
+     * 作为下一轮的输入，直到某一轮不再输出子目录为止。每一轮的检查报告输出到round-xxxxx目录中。
+     */
+    private boolean runSourceListing(String sourceListingDirectory, Path resultOutputPath, CheckSummary checkSummary)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        FileSystem outputFs = resultOutputPath.getFileSystem(this.getConf());
+        if (outputFs.exists(resultOutputPath)) {
+            throw new IOException(String.format("The result output path [%s] already exists.", resultOutputPath));
+        }
+        Path sourceListingPath = new Path(sourceListingDirectory);
+        sourceListingPath = sourceListingPath.getFileSystem(this.getConf()).makeQualified(sourceListingPath);
 
-        FileInputFormat.addInputPath(job, new Path(sourceFileList));
-        FileOutputFormat.setOutputPath(job, new Path(resultOutputPath));
+        // 第一轮的输入只有需要列出的源目录
+        Path roundInputPath = new Path(resultOutputPath, App.ROOTS_FILE_NAME);
+        try (FSDataOutputStream outputStream = outputFs.create(roundInputPath, false)) {
+            outputStream.write((sourceListingPath.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
 
+        int dirsPerTask = this.getConf().getInt(Constants.SOURCE_LISTING_DIRS_PER_TASK_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_DIRS_PER_TASK);
+        for (int round = 0; ; round++) {
+            Path roundOutputPath = new Path(resultOutputPath, String.format("%s%05d", App.ROUND_OUTPUT_PREFIX, round));
+            LOG.info("Begin to list the source directories in [{}] in round {}.", roundInputPath, round);
+
+            Job job = this.newCheckJob(App.name + "-" + App.ROUND_OUTPUT_PREFIX + round);
+            job.setInputFormatClass(NLineInputFormat.class);
+            NLineInputFormat.setNumLinesPerSplit(job, dirsPerTask);
+            job.setMapperClass(SourceListingMapper.class);
+            job.setNumReduceTasks(0);
+            MultipleOutputs.addNamedOutput(job, SourceListingMapper.DIRS_NAMED_OUTPUT, TextOutputFormat.class,
+                    Text.class, NullWritable.class);
+            FileInputFormat.addInputPath(job, roundInputPath);
+            FileOutputFormat.setOutputPath(job, roundOutputPath);
+            if (!job.waitForCompletion(true)) {
+                return false;
+            }
+            checkSummary.add(job.getCounters());
+
+            Path nextRoundInputPath = new Path(roundOutputPath, SourceListingMapper.DIRS_NAMED_OUTPUT + "-*");
+            FileStatus[] nextRoundInputFiles = outputFs.globStatus(nextRoundInputPath);
+            if (null == nextRoundInputFiles || nextRoundInputFiles.length == 0) {
+                LOG.info("Finish listing the source directories in {} rounds.", round + 1);
+                return true;
+            }
+            roundInputPath = nextRoundInputPath;
+        }
+    }
+
+    /**
+     * 同时列出源目录和对应的目的目录，按相对于目的工作目录的路径归并后检查。
+     * 作业提交时只列出两个目录的直接子项，由map任务并行递归列出每个子项，reduce阶段按相对路径有序归并，
+     * 一次作业同时输出普通的检查报告和只存在于目的目录中的文件的TARGET_ONLY报告。
+     */
+    private boolean runTargetDiff(String sourceDirectory, Path resultOutputPath, CheckSummary checkSummary)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        Path sourcePath = new Path(sourceDirectory);
+        FileSystem sourceFs = sourcePath.getFileSystem(this.getConf());
+        sourcePath = sourceFs.makeQualified(sourcePath);
+        Path targetPath = new PathMapper(new Path(this.getConf().get(Constants.SOURCE_WORK_DIR_KEY)),
+                new Path(this.getConf().get(Constants.TARGET_WORK_DIR_KEY))).getTargetDirectory(sourcePath);
+        FileSystem targetFs = targetPath.getFileSystem(this.getConf());
+
+        Path diffPath = resultOutputPath.suffix(App.DIFF_PATH_SUFFIX);
+        Path sourceRootsPath = new Path(diffPath, App.SOURCE_ROOTS_FILE_NAME);
+        Path targetRootsPath = new Path(diffPath, App.TARGET_ROOTS_FILE_NAME);
+        FileSystem diffFs = diffPath.getFileSystem(this.getConf());
+        diffFs.delete(diffPath, true);
+        long sourceRoots = this.writeRoots(sourceFs, sourcePath, diffFs, sourceRootsPath);
+        long targetRoots = this.writeRoots(targetFs, targetPath, diffFs, targetRootsPath);
+        LOG.info("Diff the source directory [{}] with {} entries and the target directory [{}] with {} entries.",
+                sourcePath, sourceRoots, targetPath, targetRoots);
+
+        int dirsPerTask = this.getConf().getInt(Constants.SOURCE_LISTING_DIRS_PER_TASK_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_DIRS_PER_TASK);
+        int reduces = this.getConf().getInt(Constants.TARGET_DIFF_REDUCES_KEY, Constants.DEFAULT_TARGET_DIFF_REDUCES);
+        if (reduces <= 0) {
+            // 所有文件的检查都在reduce阶段进行，默认与列出两个目录的map任务一样多
+            reduces = (int) Math.max(1, (sourceRoots + dirsPerTask - 1) / dirsPerTask
+                    + (targetRoots + dirsPerTask - 1) / dirsPerTask);
+        }
+        LOG.info("Diff with {} reduce tasks.", reduces);
+
+        Job job = this.newCheckJob(App.name + "-diff");
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(DiffEntry.class);
+        job.setReducerClass(DiffJoinReducer.class);
+        job.setNumReduceTasks(reduces);
+        NLineInputFormat.setNumLinesPerSplit(job, dirsPerTask);
+        MultipleInputs.addInputPath(job, sourceRootsPath, NLineInputFormat.class, DiffListingMapper.Source.class);
+        MultipleInputs.addInputPath(job, targetRootsPath, NLineInputFormat.class, DiffListingMapper.Target.class);
+        FileOutputFormat.setOutputPath(job, resultOutputPath);
         boolean status = job.waitForCompletion(true);
+        if (status) {
+            checkSummary.add(job.getCounters());
+        }
+        diffFs.delete(diffPath, true);
+        return status;
+    }
 
-        return status ? 0 : 1;
+    /**
+     * 每行写出目录的一个直接子项，目录是文件时写出它自己，不存在时写出空文件，返回写出的行数。
+     */
+    private long writeRoots(FileSystem fs, Path directory, FileSystem rootsFs, Path rootsPath) throws IOException {
+        FileStatus[] children;
+        try {
+            children = fs.listStatus(directory);
+        } catch (FileNotFoundException e) {
+            LOG.warn("The directory [{}] does not exist.", directory);
+            children = new FileStatus[0];
+        }
+        try (FSDataOutputStream outputStream = rootsFs.create(rootsPath, false)) {
+            for (FileStatus child : children) {
+                outputStream.write((child.getPath().toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return children.length;
+    }
+
+    /**
+     * 按源文件路径关联源文件列表和上一次的检查报告。
+     * 已经有确定结果的检查报告输出到resumePath下的part-r-xxxxx中，需要检查的源文件输出到remaining-r-xxxxx中。
+     */
+    private boolean runResumeJoin(String sourceFileList, Path previousOutputPath, Path resumePath,
+                                  CheckSummary checkSummary)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        FileSystem previousOutputFs = previousOutputPath.getFileSystem(this.getConf());
+        if (!previousOutputFs.exists(previousOutputPath)) {
+            throw new IOException(String.format("The previous result output path [%s] does not exist.",
+                    previousOutputPath));
+        }
+
+        Job job = this.newCheckJob(App.name + "-resume");
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(ResumeEntry.class);
+        job.setReducerClass(ResumeJoinReducer.class);
+        MultipleInputs.addInputPath(job, new Path(sourceFileList), TextInputFormat.class, ResumeListMapper.class);
+        @SuppressWarnings("rawtypes")
+        Class<? extends InputFormat> reportInputFormat = CheckReportWriter.isBinary(this.getConf())
+                ? SequenceFileInputFormat.class : TextInputFormat.class;
+        List<Path> previousReportPaths = new ArrayList<>();
+        previousReportPaths.addAll(App.getPreviousOutputPaths(previousOutputPath, "part-"));
+        previousReportPaths.addAll(App.getPreviousOutputPaths(previousOutputPath,
+                RangeCheckMapper.REPORT_NAMED_OUTPUT + "-"));
+        previousReportPaths.addAll(App.getPreviousOutputPaths(previousOutputPath,
+                ResumeJoinReducer.RESUMED_FILE_PREFIX));
+        // 上一次也是续跑并且在检查阶段失败时，沿用的检查报告还在中间结果的目录中
+        previousReportPaths.add(new Path(previousOutputPath.suffix(App.RESUME_PATH_SUFFIX), "part-*"));
+        for (Path previousReportPath : previousReportPaths) {
+            FileStatus[] previousReportFiles = previousOutputFs.globStatus(previousReportPath);
+            if (null != previousReportFiles && previousReportFiles.length > 0) {
+                MultipleInputs.addInputPath(job, previousReportPath, reportInputFormat, ResumeReportMapper.class);
+            }
+        }
+        MultipleOutputs.addNamedOutput(job, ResumeJoinReducer.REMAINING_NAMED_OUTPUT, TextOutputFormat.class,
+                NullWritable.class, Text.class);
+        FileOutputFormat.setOutputPath(job, resumePath);
+        if (!job.waitForCompletion(true)) {
+            return false;
+        }
+        checkSummary.add(job.getCounters());
+        LOG.info("Resume {} checked source files from [{}], {} source files remain to be checked.",
+                job.getCounters().findCounter(ResumeJoinReducer.RESUME_GROUP, ResumeJoinReducer.RESUMED_COUNTER)
+                        .getValue(), previousOutputPath,
+                job.getCounters().findCounter(ResumeJoinReducer.RESUME_GROUP, ResumeJoinReducer.REMAINING_COUNTER)
+                        .getValue());
+        return true;
+    }
+
+    /**
+     * 读取本次所有的检查报告，计算每个目录两端的摘要，输出到检查报告输出路径下的digest目录中。
+     * 只有一个reduce任务，摘要文件按目录排序，父目录在子目录之前。
+     */
+    private boolean runDigest(Path resultOutputPath)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        Job job = Job.getInstance(this.getConf(), App.name + "-digest");
+        job.setJarByClass(App.class);
+        job.setInputFormatClass(CheckReportWriter.isBinary(this.getConf())
+                ? SequenceFileInputFormat.class : TextInputFormat.class);
+        job.setMapperClass(DigestMapper.class);
+        job.setCombinerClass(DigestReducer.Combiner.class);
+        job.setReducerClass(DigestReducer.class);
+        job.setNumReduceTasks(1);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(DirectoryDigest.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        job.getConfiguration().set(App.OUTPUT_BASE_NAME_KEY, App.DIGEST_DIR_NAME);
+
+        FileSystem fs = resultOutputPath.getFileSystem(this.getConf());
+        boolean hasInput = false;
+        for (String prefix : new String[]{"part-", RangeCheckMapper.REPORT_NAMED_OUTPUT + "-",
+                ResumeJoinReducer.RESUMED_FILE_PREFIX, App.ROUND_OUTPUT_PREFIX + "*/part-"}) {
+            Path reportPath = new Path(resultOutputPath, prefix + "*");
+            FileStatus[] reportFiles = fs.globStatus(reportPath);
+            if (null != reportFiles && reportFiles.length > 0) {
+                FileInputFormat.addInputPath(job, reportPath);
+                hasInput = true;
+            }
+        }
+        if (!hasInput) {
+            LOG.warn("No check reports in [{}], skip computing the directory digests.", resultOutputPath);
+            return true;
+        }
+
+        Path digestPath = new Path(resultOutputPath, App.DIGEST_DIR_NAME);
+        FileOutputFormat.setOutputPath(job, digestPath);
+        if (!job.waitForCompletion(true)) {
+            return false;
+        }
+        System.out.printf("Directory digests: %d directories, %d of them differ between the source and the target, "
+                        + "written to [%s].%n",
+                job.getCounters().findCounter(DigestReducer.DIGEST_GROUP, DigestReducer.DIRECTORIES_COUNTER).getValue(),
+                job.getCounters().findCounter(DigestReducer.DIGEST_GROUP,
+                        DigestReducer.DIFFERENT_DIRECTORIES_COUNTER).getValue(), digestPath);
+        return true;
+    }
+
+    /**
+     * 上一次输出的文件，作业失败时已经提交的任务的输出还在_temporary目录中。
+     */
+    private static List<Path> getPreviousOutputPaths(Path previousOutputPath, String prefix) {
+        List<Path> previousOutputPaths = new ArrayList<>();
+        previousOutputPaths.add(new Path(previousOutputPath, prefix + "*"));
+        previousOutputPaths.add(new Path(previousOutputPath, "_temporary/*/task_*/" + prefix + "*"));
+        return previousOutputPaths;
+    }
+
+    /**
+     * 将沿用的检查报告移动到本次的检查报告输出路径中，命名为resumed-r-xxxxx。
+     */
+    private void moveResumedReports(Path resumePath, Path resultOutputPath) throws IOException {
+        FileSystem fs = resumePath.getFileSystem(this.getConf());
+        FileStatus[] resumedReports = fs.globStatus(new Path(resumePath, "part-*"));
+        if (null != resumedReports) {
+            for (FileStatus resumedReport : resumedReports) {
+                String name = resumedReport.getPath().getName();
+                Path destination = new Path(resultOutputPath,
+                        ResumeJoinReducer.RESUMED_FILE_PREFIX + name.substring("part-".length()));
+                if (!fs.rename(resumedReport.getPath(), destination)) {
+                    throw new IOException(String.format("Failed to move the resumed report [%s] to [%s].",
+                            resumedReport.getPath(), destination));
+                }
+            }
+        }
+        fs.delete(resumePath, true);
+    }
+
+    /**
+     * 将上一次的校验值目录和本次检查输出的目录项合并，按HashPartitioner分区写成MapFile，供下一次检查查询。
+     */
+    private boolean mergeCatalog(String catalogInput, List<Path> catalogEntriesPaths, String catalogOutput)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        Job job = Job.getInstance(this.getConf(), App.name + "-catalog");
+        job.setJarByClass(App.class);
+        job.setInputFormatClass(SequenceFileInputFormat.class);
+        job.setMapperClass(Mapper.class);
+        job.setReducerClass(CatalogMergeReducer.class);
+        job.setOutputFormatClass(MapFileOutputFormat.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(CatalogEntry.class);
+
+        boolean hasInput = false;
+        if (null != catalogInput) {
+            Path catalogInputPath = new Path(catalogInput);
+            if (catalogInputPath.getFileSystem(this.getConf()).exists(catalogInputPath)) {
+                FileInputFormat.addInputPath(job, catalogInputPath);
+                hasInput = true;
+            } else {
+                LOG.warn("The catalog input [{}] does not exist.", catalogInput);
+            }
+        }
+        for (Path catalogEntriesPath : catalogEntriesPaths) {
+            FileStatus[] catalogEntriesFiles = catalogEntriesPath.getFileSystem(this.getConf())
+                    .globStatus(catalogEntriesPath);
+            if (null != catalogEntriesFiles && catalogEntriesFiles.length > 0) {
+                FileInputFormat.addInputPath(job, catalogEntriesPath);
+                hasInput = true;
+            }
+        }
+        if (!hasInput) {
+            LOG.warn("No catalog entries to merge, skip writing the catalog [{}].", catalogOutput);
+            return true;
+        }
+
+        FileOutputFormat.setOutputPath(job, new Path(catalogOutput));
+        return job.waitForCompletion(true);
     }
 }
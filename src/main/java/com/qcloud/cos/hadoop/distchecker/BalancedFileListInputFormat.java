@@ -0,0 +1,196 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.util.LineReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 按照需要读取的字节数均衡切分源文件列表的InputFormat。
+ * 作业提交时扫描源文件列表，通过{@link GroupedFileStatusLookup}按父目录查询每个文件的长度，
+ * 每个文件的开销为文件长度加上固定的请求开销，然后按开销从大到小依次放入当前开销最小的分片（LPT），
+ * 使得各个map任务的读取量尽量相等。分片数由hadoop.cos.dist.checker.balanced.split.num指定，
+ * 没有指定时为总开销除以hadoop.cos.dist.checker.balanced.split.target.cost，分片中的文件保持源文件列表中的先后顺序。
+ */
+public class BalancedFileListInputFormat extends FileInputFormat<LongWritable, Text> {
+    private static final Logger LOG = LoggerFactory.getLogger(BalancedFileListInputFormat.class);
+
+    private static final class ListEntry {
+        private final long index;
+        private final String path;
+        private final long cost;
+
+        private ListEntry(long index, String path, long cost) {
+            this.index = index;
+            this.path = path;
+            this.cost = cost;
+        }
+    }
+
+    private static final class Bin {
+        private final List<ListEntry> entries = new ArrayList<>();
+        private long cost = 0;
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        Configuration configuration = job.getConfiguration();
+        long perFileCost = configuration.getLong(Constants.BALANCED_SPLIT_PER_FILE_COST_KEY,
+                Constants.DEFAULT_BALANCED_SPLIT_PER_FILE_COST);
+        if (perFileCost < 0) {
+            throw new IOException(String.format("The %s can not be negative, but got %d.",
+                    Constants.BALANCED_SPLIT_PER_FILE_COST_KEY, perFileCost));
+        }
+
+        List<String> pathStrs = new ArrayList<>();
+        for (FileStatus listFileStatus : this.listStatus(job)) {
+            readListFile(listFileStatus.getPath(), configuration, pathStrs);
+        }
+        // 查询不到长度的文件只计请求开销
+        GroupedFileStatusLookup lookup = GroupedFileStatusLookup.lookup(pathStrs, configuration, false);
+        List<ListEntry> entries = new ArrayList<>(pathStrs.size());
+        for (int i = 0; i < pathStrs.size(); i++) {
+            FileStatus fileStatus = lookup.getFileStatus(i);
+            long length = null == fileStatus ? 0 : fileStatus.getLen();
+            entries.add(new ListEntry(i, pathStrs.get(i), length + perFileCost));
+        }
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        long totalCost = 0;
+        for (ListEntry entry : entries) {
+            totalCost += entry.cost;
+        }
+        int splitNum = getSplitNum(configuration, totalCost, entries.size());
+        PriorityQueue<Bin> bins = new PriorityQueue<>(splitNum, Comparator.comparingLong(bin -> bin.cost));
+        for (int i = 0; i < splitNum; i++) {
+            bins.add(new Bin());
+        }
+        entries.sort(Comparator.comparingLong((ListEntry entry) -> entry.cost).reversed());
+        for (ListEntry entry : entries) {
+            Bin bin = bins.poll();
+            bin.entries.add(entry);
+            bin.cost += entry.cost;
+            bins.add(bin);
+        }
+
+        List<InputSplit> splits = new ArrayList<>(splitNum);
+        long maxCost = 0;
+        long minCost = Long.MAX_VALUE;
+        for (Bin bin : bins) {
+            if (bin.entries.isEmpty()) {
+                continue;
+            }
+            // 恢复源文件列表中的顺序，同一个目录下的文件仍然尽量连续
+            bin.entries.sort(Comparator.comparingLong(entry -> entry.index));
+            List<String> paths = new ArrayList<>(bin.entries.size());
+            for (ListEntry entry : bin.entries) {
+                paths.add(entry.path);
+            }
+            splits.add(new FileListSplit(paths, bin.cost));
+            maxCost = Math.max(maxCost, bin.cost);
+            minCost = Math.min(minCost, bin.cost);
+        }
+        LOG.info("Packed {} source files into {} splits, the cost of the splits ranges from {} to {}.",
+                entries.size(), splits.size(), minCost, maxCost);
+        return splits;
+    }
+
+    /**
+     * 分片数：没有指定时按总开销除以每个分片的目标开销计算，不超过文件数。
+     */
+    static int getSplitNum(Configuration configuration, long totalCost, int files) throws IOException {
+        int splitNum = configuration.getInt(Constants.BALANCED_SPLIT_NUM_KEY, Constants.DEFAULT_BALANCED_SPLIT_NUM);
+        if (splitNum <= 0) {
+            long targetCost = configuration.getLong(Constants.BALANCED_SPLIT_TARGET_COST_KEY,
+                    Constants.DEFAULT_BALANCED_SPLIT_TARGET_COST);
+            if (targetCost <= 0) {
+                throw new IOException(String.format("The %s must be positive, but got %d.",
+                        Constants.BALANCED_SPLIT_TARGET_COST_KEY, targetCost));
+            }
+            splitNum = (int) Math.min(Integer.MAX_VALUE, (totalCost + targetCost - 1) / targetCost);
+        }
+        return Math.max(1, Math.min(splitNum, files));
+    }
+
+    /**
+     * 读取源文件列表中的每一行，跳过空行。
+     */
+    static void readListFile(Path listFile, Configuration configuration, List<String> pathStrs) throws IOException {
+        FileSystem listFs = listFile.getFileSystem(configuration);
+        try (FSDataInputStream inputStream = listFs.open(listFile)) {
+            LineReader lineReader = new LineReader(inputStream, configuration);
+            Text line = new Text();
+            while (lineReader.readLine(line) > 0) {
+                String pathStr = line.toString().trim();
+                if (!pathStr.isEmpty()) {
+                    pathStrs.add(pathStr);
+                }
+            }
+        }
+    }
+
+    @Override
+    public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new FileListRecordReader();
+    }
+
+    /**
+     * 依次产生分片中的源文件路径，key为路径在分片中的序号。
+     */
+    private static final class FileListRecordReader extends RecordReader<LongWritable, Text> {
+        private List<String> paths;
+        private int index = -1;
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) {
+            this.paths = ((FileListSplit) split).getPaths();
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            if (this.index + 1 >= this.paths.size()) {
+                return false;
+            }
+            this.index++;
+            return true;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() {
+            return new LongWritable(this.index);
+        }
+
+        @Override
+        public Text getCurrentValue() {
+            return new Text(this.paths.get(this.index));
+        }
+
+        @Override
+        public float getProgress() {
+            return this.paths.isEmpty() ? 1.0f : (float) (this.index + 1) / this.paths.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64Combiner;
+import com.qcloud.cos.hadoop.distchecker.checksum.NativeCRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.SlicingCRC64;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 计算源文件的CRC64校验值。
+ * 大文件会被切分成固定大小的段，在有界线程池中使用positional read并行计算每一段的CRC64，
+ * 最后按顺序通过{@link CRC64Combiner#combine(long[], long[])}合并成整个文件的CRC64。
+ * 读缓冲区从缓冲池中借用并在计算完成后归还，小文件只借用与文件长度相当的缓冲区；
+ * 输入流支持{@link ByteBufferReadable}时使用堆外缓冲区，省去一次到堆内数组的拷贝。
+ * 本地库libcrc64ecma可用时使用{@link NativeCRC64}计算，否则使用纯Java的{@link SlicingCRC64}。
+ */
+public class CRC64Calculator implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(CRC64Calculator.class);
+
+    private final long rangeSize;
+    private final int parallelism;
+    private final ExecutorService executorService;
+    private final CheckMetrics checkMetrics;
+    private final TokenBucket readBandwidth;        // 读取源文件的带宽上限，不限制时为null
+    private final boolean nativeCrc64;
+    private final ByteBufferPool bufferPool = new ElasticByteBufferPool();
+
+    public CRC64Calculator(Configuration configuration) {
+        this(configuration, new CheckMetrics());
+    }
+
+    public CRC64Calculator(Configuration configuration, CheckMetrics checkMetrics) {
+        this.checkMetrics = checkMetrics;
+        double taskReadBandwidth = RequestThrottler.getTaskBudget(configuration, Constants.READ_BANDWIDTH_KEY);
+        if (taskReadBandwidth > 0) {
+            LOG.info("Limit the read bandwidth of the source files to {} bytes per second in this task.",
+                    (long) taskReadBandwidth);
+            this.readBandwidth = new TokenBucket(taskReadBandwidth);
+        } else {
+            this.readBandwidth = null;
+        }
+        this.nativeCrc64 = configuration.getBoolean(Constants.CRC64_NATIVE_ENABLED_KEY,
+                Constants.DEFAULT_CRC64_NATIVE_ENABLED) && NativeCRC64.isAvailable();
+        this.rangeSize = configuration.getLong(Constants.CRC64_RANGE_SIZE_KEY, Constants.DEFAULT_CRC64_RANGE_SIZE);
+        if (this.rangeSize <= 0) {
+            throw new IllegalArgumentException(String.format("The %s must be positive, but got %d.",
+                    Constants.CRC64_RANGE_SIZE_KEY, this.rangeSize));
+        }
+        this.parallelism = configuration.getInt(Constants.CRC64_RANGE_PARALLELISM_KEY,
+                Constants.DEFAULT_CRC64_RANGE_PARALLELISM);
+        if (this.parallelism <= 0) {
+            throw new IllegalArgumentException(String.format("The %s must be positive, but got %d.",
+                    Constants.CRC64_RANGE_PARALLELISM_KEY, this.parallelism));
+        }
+
+        if (this.parallelism > 1) {
+            final AtomicInteger threadIndex = new AtomicInteger(0);
+            this.executorService = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "crc64-range-reader-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executorService = null;
+        }
+    }
+
+    /**
+     * 计算整个文件的CRC64，fileLength为文件的长度。
+     */
+    public long compute(FileSystem fs, Path path, long fileLength) throws IOException {
+        if (null == this.executorService || fileLength <= this.rangeSize) {
+            return this.computeSequentially(fs, path, fileLength);
+        }
+        return this.computeInRanges(fs, path, 0, fileLength);
+    }
+
+    /**
+     * 计算文件中从position开始，长度为length的一段数据的CRC64。
+     */
+    public long computeRange(FileSystem fs, Path path, long position, long length) throws IOException {
+        if (null != this.executorService && length > this.rangeSize) {
+            return this.computeInRanges(fs, path, position, length);
+        }
+        try (FSDataInputStream inputStream = this.open(fs, path)) {
+            return this.computeRange(inputStream, position, length);
+        }
+    }
+
+    /**
+     * 只打开一次文件，通过positional read分别计算从positions中每个位置开始，长度为length的数据的CRC64。
+     */
+    public long[] computeRanges(FileSystem fs, Path path, long[] positions, long length) throws IOException {
+        long[] crcs = new long[positions.length];
+        try (FSDataInputStream inputStream = this.open(fs, path)) {
+            for (int i = 0; i < positions.length; i++) {
+                crcs[i] = this.computeRange(inputStream, positions[i], length);
+            }
+        }
+        return crcs;
+    }
+
+    /**
+     * 读取一遍整个文件，同时更新多个校验值，用于CRC64以外的算法。这些算法无法分段计算后合并，只能顺序读取。
+     */
+    public void computeDigests(FileSystem fs, Path path, long fileLength, List<ChecksumDigest> digests)
+            throws IOException {
+        try (FSDataInputStream inputStream = this.open(fs, path)) {
+            ByteBuffer buffer = this.borrowBuffer(false, fileLength);
+            try {
+                byte[] bytes = buffer.array();
+                while (true) {
+                    int bytesRead = inputStream.read(bytes, buffer.arrayOffset(), buffer.capacity());
+                    if (bytesRead < 0) {
+                        break;
+                    }
+                    this.throttleRead(bytesRead);
+                    for (ChecksumDigest digest : digests) {
+                        digest.update(bytes, buffer.arrayOffset(), bytesRead);
+                    }
+                }
+            } finally {
+                this.bufferPool.putBuffer(buffer);
+            }
+        }
+    }
+
+    private FSDataInputStream open(FileSystem fs, Path path) throws IOException {
+        long startNanos = System.nanoTime();
+        FSDataInputStream inputStream = fs.open(path);
+        this.checkMetrics.record(CheckPhase.OPEN, startNanos);
+        return inputStream;
+    }
+
+    private long computeSequentially(FileSystem fs, Path path, long fileLength) throws IOException {
+        try (FSDataInputStream inputStream = this.open(fs, path)) {
+            boolean byteBufferReadable = inputStream.getWrappedStream() instanceof ByteBufferReadable;
+            ByteBuffer buffer = this.borrowBuffer(byteBufferReadable, fileLength);
+            try {
+                SlicingCRC64 crc64 = this.newCrc64();
+                // 按文件长度借用的缓冲区不影响读取，文件变长时会继续读到文件末尾
+                while (true) {
+                    buffer.clear();
+                    int bytesRead = byteBufferReadable
+                            ? inputStream.read(buffer)
+                            : inputStream.read(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+                    if (bytesRead < 0) {
+                        break;
+                    }
+                    this.throttleRead(bytesRead);
+                    if (byteBufferReadable) {
+                        buffer.flip();
+                    } else {
+                        buffer.limit(bytesRead);
+                    }
+                    crc64.update(buffer);
+                }
+                return crc64.getValue();
+            } finally {
+                this.bufferPool.putBuffer(buffer);
+            }
+        }
+    }
+
+    private long computeInRanges(FileSystem fs, Path path, long offset, long length) throws IOException {
+        LOG.info("Computing the crc64 of the file [{}] from {} to {} in ranges of {} bytes with {} threads.",
+                path, offset, offset + length, this.rangeSize, this.parallelism);
+        List<Future<Long>> rangeFutures = new ArrayList<>();
+        List<Long> rangeLengths = new ArrayList<>();
+        try (FSDataInputStream inputStream = this.open(fs, path)) {
+            try {
+                for (long position = offset; position < offset + length; position += this.rangeSize) {
+                    final long rangePosition = position;
+                    final long rangeLength = Math.min(this.rangeSize, offset + length - position);
+                    rangeFutures.add(this.executorService.submit(
+                            () -> this.computeRange(inputStream, rangePosition, rangeLength)));
+                    rangeLengths.add(rangeLength);
+                }
+
+                // 按段的顺序合并CRC64
+                long[] crcs = new long[rangeFutures.size()];
+                long[] lengths = new long[rangeFutures.size()];
+                for (int i = 0; i < rangeFutures.size(); i++) {
+                    crcs[i] = rangeFutures.get(i).get();
+                    lengths[i] = rangeLengths.get(i);
+                }
+                return CRC64Combiner.combine(crcs, lengths);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(String.format("Computing the crc64 of the file [%s] is interrupted.",
+                        path));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(String.format("Computing the crc64 of the file [%s] failed.", path),
+                        e.getCause());
+            } finally {
+                // 出错时取消还未完成的段，避免继续占用线程池
+                for (Future<Long> rangeFuture : rangeFutures) {
+                    rangeFuture.cancel(true);
+                }
+            }
+        }
+    }
+
+    private long computeRange(FSDataInputStream inputStream, long position, long length) throws IOException {
+        SlicingCRC64 crc64 = this.newCrc64();
+        // positional read只支持堆内数组
+        ByteBuffer buffer = this.borrowBuffer(false, length);
+        try {
+            byte[] bytes = buffer.array();
+            int bufferLength = buffer.capacity();
+            long remaining = length;
+            while (remaining > 0) {
+                int bytesToRead = (int) Math.min(bufferLength, remaining);
+                int bytesRead = inputStream.read(position, bytes, buffer.arrayOffset(), bytesToRead);
+                if (bytesRead < 0) {
+                    throw new EOFException(String.format("Unexpected end of the file at position: %d.", position));
+                }
+                this.throttleRead(bytesRead);
+                crc64.update(bytes, buffer.arrayOffset(), bytesRead);
+                position += bytesRead;
+                remaining -= bytesRead;
+            }
+            return crc64.getValue();
+        } finally {
+            this.bufferPool.putBuffer(buffer);
+        }
+    }
+
+    private SlicingCRC64 newCrc64() {
+        return this.nativeCrc64 ? new NativeCRC64() : new SlicingCRC64();
+    }
+
+    private void throttleRead(int bytesRead) throws InterruptedIOException {
+        if (null != this.readBandwidth) {
+            long waitNanos = this.readBandwidth.acquire(bytesRead);
+            if (waitNanos > 0) {
+                this.checkMetrics.recordNanos(CheckPhase.THROTTLE, waitNanos);
+            }
+        }
+    }
+
+    /**
+     * 从缓冲池中借用至少能容纳length字节的缓冲区，最大为READ_BUFFER_SIZE。
+     * 缓冲区大小按2的幂对齐，避免缓冲池中积累过多不同大小的缓冲区。
+     */
+    private ByteBuffer borrowBuffer(boolean direct, long length) {
+        int bufferSize = Constants.MIN_READ_BUFFER_SIZE;
+        while (bufferSize < length && bufferSize < Constants.READ_BUFFER_SIZE) {
+            bufferSize <<= 1;
+        }
+        bufferSize = Math.min(bufferSize, Constants.READ_BUFFER_SIZE);
+        ByteBuffer buffer = this.bufferPool.getBuffer(direct, bufferSize);
+        buffer.clear();
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        if (null != this.executorService) {
+            this.executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.NativeCRC64;
+import com.qcloud.cos.hadoop.distchecker.checksum.SlicingCRC64;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.CosNFileStatus;
+
+import java.math.BigInteger;
+
+/**
+ * COS对象元数据中的CRC64，CosN的getFileStatus直接返回，不需要额外的请求。
+ */
+public class CRC64ChecksumStrategy extends Configured implements ChecksumStrategy {
+    public static final String ALGORITHM = "CRC64";
+
+    @Override
+    public ChecksumValue getStoredChecksum(FileMetadata fileMetadata) {
+        if (!(fileMetadata.getFileStatus() instanceof CosNFileStatus)) {
+            return null;
+        }
+        String crc64ecma = ((CosNFileStatus) fileMetadata.getFileStatus()).getCrc64ecma();
+        if (null == crc64ecma) {
+            return null;
+        }
+        return toChecksumValue(new BigInteger(crc64ecma).longValue());
+    }
+
+    @Override
+    public ChecksumDigest newDigest(ChecksumValue expected) {
+        final SlicingCRC64 crc64 = null != this.getConf()
+                && this.getConf().getBoolean(Constants.CRC64_NATIVE_ENABLED_KEY, Constants.DEFAULT_CRC64_NATIVE_ENABLED)
+                && NativeCRC64.isAvailable() ? new NativeCRC64() : new SlicingCRC64();
+        return new ChecksumDigest() {
+            @Override
+            public void update(byte[] b, int off, int len) {
+                crc64.update(b, off, len);
+            }
+
+            @Override
+            public ChecksumValue getValue() {
+                return toChecksumValue(crc64.getValue());
+            }
+        };
+    }
+
+    public static ChecksumValue toChecksumValue(long crc64) {
+        return new ChecksumValue(ALGORITHM, String.valueOf(crc64));
+    }
+}
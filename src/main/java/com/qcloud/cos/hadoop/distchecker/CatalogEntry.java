@@ -0,0 +1,70 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 校验值目录中的一项，记录源文件在检查时的长度、修改时间以及CRC64。
+ * 源文件的长度和修改时间都没有变化时，之后的检查可以直接复用这里的CRC64。
+ */
+public class CatalogEntry implements Writable {
+    private long length;
+    private long modificationTime;
+    private long crc64;
+    private long checkTime;         // 用于合并目录时保留最新的一项
+
+    public CatalogEntry() {
+    }
+
+    public CatalogEntry(long length, long modificationTime, long crc64, long checkTime) {
+        this.length = length;
+        this.modificationTime = modificationTime;
+        this.crc64 = crc64;
+        this.checkTime = checkTime;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    public long getCrc64() {
+        return crc64;
+    }
+
+    public long getCheckTime() {
+        return checkTime;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.length);
+        out.writeLong(this.modificationTime);
+        out.writeLong(this.crc64);
+        out.writeLong(this.checkTime);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.length = in.readLong();
+        this.modificationTime = in.readLong();
+        this.crc64 = in.readLong();
+        this.checkTime = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogEntry{" +
+                "length=" + length +
+                ", modificationTime=" + modificationTime +
+                ", crc64=" + crc64 +
+                ", checkTime=" + checkTime +
+                '}';
+    }
+}
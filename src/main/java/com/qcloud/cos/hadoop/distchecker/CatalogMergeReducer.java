@@ -0,0 +1,26 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * 合并上一次的校验值目录和本次检查输出的目录项，同一个源文件只保留最后一次检查时的目录项。
+ */
+public class CatalogMergeReducer extends Reducer<Text, CatalogEntry, Text, CatalogEntry> {
+
+    @Override
+    protected void reduce(Text key, Iterable<CatalogEntry> values, Context context)
+            throws IOException, InterruptedException {
+        CatalogEntry latest = null;
+        for (CatalogEntry value : values) {
+            if (null == latest || value.getCheckTime() > latest.getCheckTime()) {
+                // Hadoop会复用value对象，这里需要拷贝一份
+                latest = new CatalogEntry(value.getLength(), value.getModificationTime(), value.getCrc64(),
+                        value.getCheckTime());
+            }
+        }
+        context.write(key, latest);
+    }
+}
@@ -0,0 +1,50 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 源文件列表的一个分片，skippedLineOffsets中记录了已经被切分成FileRangeSplit的大文件所在行的偏移，
+ * 读取这个分片时会跳过这些行。
+ */
+public class CheckListSplit extends FileSplit {
+    private long[] skippedLineOffsets;
+
+    public CheckListSplit() {
+        super();
+        this.skippedLineOffsets = new long[0];
+    }
+
+    public CheckListSplit(Path file, long start, long length, String[] hosts, long[] skippedLineOffsets) {
+        super(file, start, length, hosts);
+        this.skippedLineOffsets = skippedLineOffsets.clone();
+        Arrays.sort(this.skippedLineOffsets);
+    }
+
+    public boolean isSkipped(long lineOffset) {
+        return Arrays.binarySearch(this.skippedLineOffsets, lineOffset) >= 0;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        super.write(out);
+        out.writeInt(this.skippedLineOffsets.length);
+        for (long skippedLineOffset : this.skippedLineOffsets) {
+            out.writeLong(skippedLineOffset);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        super.readFields(in);
+        this.skippedLineOffsets = new long[in.readInt()];
+        for (int i = 0; i < this.skippedLineOffsets.length; i++) {
+            this.skippedLineOffsets[i] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+/**
+ * 检查报告中的校验值是通过哪种方式得到的。
+ * 二进制格式的检查报告中保存的是序号，新的方式只能添加在最后。
+ */
+public enum CheckMethod {
+    NONE("The checksum is not compared."),
+    METADATA("The checksums are derived from the metadata of both file systems."),
+    STREAMING("The checksum of the source file is computed by reading its content."),
+    CATALOG("The checksum of the source file is reused from the checksum catalog."),
+    SAMPLED("The checksums of the randomly placed ranges of both files are compared.");
+
+    private String description;
+
+    CheckMethod(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,179 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计检查过程中各个阶段的耗时分布以及计算CRC64读取的字节数，可以在多个线程中同时记录。
+ * 任务结束时累加到作业的计数器中，同时将耗时分布写到任务输出目录下的metrics-m-xxxxx文件中，
+ * 作业结束后由App合并所有任务的耗时分布并打印汇总信息。
+ */
+public class CheckMetrics implements Writable {
+    public static final String PHASE_COUNT_GROUP = "CheckPhaseCount";
+    public static final String PHASE_MILLIS_GROUP = "CheckPhaseMillis";
+    public static final String CHECKSUM_BYTES_COUNTER = "CHECKSUM_BYTES";
+    public static final String THROTTLED_REQUESTS_COUNTER = "THROTTLED_REQUESTS";
+    public static final String RETRIED_REQUESTS_COUNTER = "RETRIED_REQUESTS";
+    public static final String METRICS_FILE_PREFIX = "metrics";
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[CheckPhase.values().length];
+    private final AtomicLong checksumBytes = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong retriedRequests = new AtomicLong();
+
+    public CheckMetrics() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时，startNanos为System.nanoTime()得到的开始时间。
+     */
+    public void record(CheckPhase checkPhase, long startNanos) {
+        this.recordNanos(checkPhase, System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(CheckPhase checkPhase, long elapsedNanos) {
+        this.histograms[checkPhase.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    public void addChecksumBytes(long bytes) {
+        this.checksumBytes.addAndGet(bytes);
+    }
+
+    public void addThrottledRequest() {
+        this.throttledRequests.incrementAndGet();
+    }
+
+    public void addRetriedRequest() {
+        this.retriedRequests.incrementAndGet();
+    }
+
+    public LatencyHistogram getHistogram(CheckPhase checkPhase) {
+        return this.histograms[checkPhase.ordinal()];
+    }
+
+    public long getChecksumBytes() {
+        return this.checksumBytes.get();
+    }
+
+    public void add(CheckMetrics other) {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i].add(other.histograms[i]);
+        }
+        this.checksumBytes.addAndGet(other.checksumBytes.get());
+        this.throttledRequests.addAndGet(other.throttledRequests.get());
+        this.retriedRequests.addAndGet(other.retriedRequests.get());
+    }
+
+    /**
+     * 在任务的cleanup中调用，累加计数器并写出耗时分布文件。
+     */
+    public void flush(TaskInputOutputContext<?, ?, ?, ?> context) throws IOException, InterruptedException {
+        this.flush(context, FileOutputFormat.getWorkOutputPath(context));
+    }
+
+    /**
+     * 累加计数器并把耗时分布文件写到workPath下，不通过MapReduce任务运行时也可以调用，例如本地检查。
+     */
+    public void flush(TaskAttemptContext context, Path workPath) throws IOException {
+        for (CheckPhase checkPhase : CheckPhase.values()) {
+            LatencyHistogram histogram = this.getHistogram(checkPhase);
+            context.getCounter(PHASE_COUNT_GROUP, checkPhase.name()).increment(histogram.getTotalCount());
+            context.getCounter(PHASE_MILLIS_GROUP, checkPhase.name()).increment(
+                    TimeUnit.MICROSECONDS.toMillis(histogram.getTotalMicros()));
+        }
+        context.getCounter(PHASE_COUNT_GROUP, CHECKSUM_BYTES_COUNTER).increment(this.checksumBytes.get());
+        context.getCounter(PHASE_COUNT_GROUP, THROTTLED_REQUESTS_COUNTER).increment(this.throttledRequests.get());
+        context.getCounter(PHASE_COUNT_GROUP, RETRIED_REQUESTS_COUNTER).increment(this.retriedRequests.get());
+
+        Path metricsPath = new Path(workPath, FileOutputFormat.getUniqueFile(context, METRICS_FILE_PREFIX, ""));
+        try (FSDataOutputStream outputStream = metricsPath.getFileSystem(context.getConfiguration())
+                .create(metricsPath, true)) {
+            this.write(outputStream);
+        }
+    }
+
+    /**
+     * 合并所有匹配metricsPathPattern的耗时分布文件。
+     */
+    public static CheckMetrics merge(FileSystem fs, Path metricsPathPattern) throws IOException {
+        CheckMetrics checkMetrics = new CheckMetrics();
+        FileStatus[] metricsFiles = fs.globStatus(metricsPathPattern);
+        if (null == metricsFiles) {
+            return checkMetrics;
+        }
+        for (FileStatus metricsFile : metricsFiles) {
+            CheckMetrics taskMetrics = new CheckMetrics();
+            try (FSDataInputStream inputStream = fs.open(metricsFile.getPath())) {
+                taskMetrics.readFields(inputStream);
+            }
+            checkMetrics.add(taskMetrics);
+        }
+        return checkMetrics;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVInt(out, this.histograms.length);
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.write(out);
+        }
+        WritableUtils.writeVLong(out, this.checksumBytes.get());
+        WritableUtils.writeVLong(out, this.throttledRequests.get());
+        WritableUtils.writeVLong(out, this.retriedRequests.get());
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int phases = WritableUtils.readVInt(in);
+        for (int i = 0; i < phases; i++) {
+            this.histograms[i].readFields(in);
+        }
+        this.checksumBytes.set(WritableUtils.readVLong(in));
+        this.throttledRequests.set(WritableUtils.readVLong(in));
+        this.retriedRequests.set(WritableUtils.readVLong(in));
+    }
+
+    /**
+     * 每个阶段一行：次数、平均、P50、P90、P99、最大耗时（毫秒），最后是计算CRC64的吞吐。
+     */
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(String.format("%-16s%12s%12s%12s%12s%12s%12s%n",
+                "PHASE", "COUNT", "AVG(ms)", "P50(ms)", "P90(ms)", "P99(ms)", "MAX(ms)"));
+        for (CheckPhase checkPhase : CheckPhase.values()) {
+            LatencyHistogram histogram = this.getHistogram(checkPhase);
+            long count = histogram.getTotalCount();
+            stringBuilder.append(String.format("%-16s%12d%12.2f%12.2f%12.2f%12.2f%12.2f%n", checkPhase.name(), count,
+                    count == 0 ? 0.0 : histogram.getTotalMicros() / 1000.0 / count,
+                    histogram.getPercentileMicros(50) / 1000.0,
+                    histogram.getPercentileMicros(90) / 1000.0,
+                    histogram.getPercentileMicros(99) / 1000.0,
+                    histogram.getMaxMicros() / 1000.0));
+        }
+        long checksumMicros = this.getHistogram(CheckPhase.CHECKSUM).getTotalMicros();
+        stringBuilder.append(String.format("Checksum bytes: %d, throughput per thread: %.2f MB/s%n",
+                this.checksumBytes.get(),
+                checksumMicros == 0 ? 0.0 : this.checksumBytes.get() / (checksumMicros / 1000000.0) / 1024 / 1024));
+        stringBuilder.append(String.format("Throttled requests: %d, retried requests: %d%n",
+                this.throttledRequests.get(), this.retriedRequests.get()));
+        return stringBuilder.toString();
+    }
+}
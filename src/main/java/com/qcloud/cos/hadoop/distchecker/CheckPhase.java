@@ -0,0 +1,23 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+/**
+ * 检查一个文件的各个阶段，用于统计每个阶段的耗时。
+ * 耗时文件中保存的是序号，新的阶段只能添加在最后。
+ */
+public enum CheckPhase {
+    SOURCE_STATUS("Get the file status of the source file."),
+    TARGET_STATUS("Get the file status of the target file, including the HEAD request for its crc64."),
+    OPEN("Open the source file."),
+    CHECKSUM("Compute the crc64 of the source file."),
+    THROTTLE("Wait for the rate limit of the target requests or the source reads.");
+
+    private String description;
+
+    CheckPhase(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
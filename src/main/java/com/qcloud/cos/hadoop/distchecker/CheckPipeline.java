@@ -0,0 +1,125 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在一个任务中同时检查多个文件。
+ * 最多有windowSize个文件处于检查中（元数据查询、计算校验值），窗口满时submit会阻塞等待最早提交的文件检查完成，
+ * 以此形成反压。检查报告按提交的顺序在调用submit和flush的线程中写出，保证输出的一致性。
+ */
+public class CheckPipeline implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(CheckPipeline.class);
+
+    /**
+     * 写出检查报告，只会在调用submit和flush的线程中被调用。
+     */
+    public interface ReportWriter {
+        void write(String key, CheckReport checkReport) throws IOException, InterruptedException;
+    }
+
+    private static final class InFlightCheck {
+        private final String key;
+        private final Future<CheckReport> future;
+
+        private InFlightCheck(String key, Future<CheckReport> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+    private final int windowSize;
+    private final ReportWriter reportWriter;
+    private final ExecutorService executorService;
+    private final Deque<InFlightCheck> inFlightChecks = new ArrayDeque<>();
+
+    public CheckPipeline(int windowSize, ReportWriter reportWriter) {
+        // 参数从左到右求值，先检查窗口大小再创建线程池
+        this(checkWindowSize(windowSize), reportWriter, newFixedThreadPool(windowSize));
+    }
+
+    /**
+     * 在指定的线程池中执行检查，例如work-stealing线程池或者虚拟线程，关闭时会一起关闭这个线程池。
+     */
+    public CheckPipeline(int windowSize, ReportWriter reportWriter, ExecutorService executorService) {
+        this.windowSize = checkWindowSize(windowSize);
+        this.reportWriter = reportWriter;
+        this.executorService = executorService;
+    }
+
+    private static int checkWindowSize(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException(String.format("The window size must be positive, but got %d.",
+                    windowSize));
+        }
+        return windowSize;
+    }
+
+    private static ExecutorService newFixedThreadPool(int windowSize) {
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(windowSize, runnable -> {
+            Thread thread = new Thread(runnable, "check-pipeline-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(String key, Callable<CheckReport> check) throws IOException, InterruptedException {
+        // 先写出已经完成的检查，窗口满时阻塞等待最早提交的检查完成
+        while (!this.inFlightChecks.isEmpty()
+                && (this.inFlightChecks.size() >= this.windowSize || this.inFlightChecks.peekFirst().future.isDone())) {
+            this.writeFirst();
+        }
+        this.inFlightChecks.addLast(new InFlightCheck(key, this.executorService.submit(check)));
+    }
+
+    /**
+     * 等待所有提交的检查完成并写出检查报告。
+     */
+    public void flush() throws IOException, InterruptedException {
+        while (!this.inFlightChecks.isEmpty()) {
+            this.writeFirst();
+        }
+    }
+
+    private void writeFirst() throws IOException, InterruptedException {
+        InFlightCheck inFlightCheck = this.inFlightChecks.pollFirst();
+        CheckReport checkReport;
+        try {
+            checkReport = inFlightCheck.future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof InterruptedException) {
+                throw new InterruptedIOException(String.format("Checking [%s] is interrupted.", inFlightCheck.key));
+            }
+            throw new IOException(String.format("Checking [%s] failed.", inFlightCheck.key), e.getCause());
+        }
+        this.reportWriter.write(inFlightCheck.key, checkReport);
+    }
+
+    @Override
+    public void close() {
+        if (!this.inFlightChecks.isEmpty()) {
+            LOG.warn("Discard {} checks which are still in flight.", this.inFlightChecks.size());
+            for (InFlightCheck inFlightCheck : this.inFlightChecks) {
+                inFlightCheck.future.cancel(true);
+            }
+            this.inFlightChecks.clear();
+        }
+        this.executorService.shutdownNow();
+    }
+}
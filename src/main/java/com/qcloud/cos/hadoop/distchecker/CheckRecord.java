@@ -0,0 +1,204 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.util.StringUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 二进制格式的检查报告中的一条记录，key为源文件相对于源工作目录的路径。
+ * 检查结果和校验方式只保存序号，CRC64保存为8个字节，目的路径与源文件的相对路径一致时不再重复保存。
+ */
+public class CheckRecord implements Writable {
+    private static final String NONE = "None";
+
+    // 目的路径的保存方式
+    private static final byte TARGET_NONE = 0;
+    private static final byte TARGET_SAME_RELATIVE_PATH = 1;
+    private static final byte TARGET_EXPLICIT = 2;
+
+    // 校验值的保存方式
+    private static final byte CHECKSUM_NONE = 0;
+    private static final byte CHECKSUM_LONG = 1;
+    private static final byte CHECKSUM_HEX = 2;
+    private static final byte CHECKSUM_STRING = 3;
+
+    private byte targetEncoding;
+    private String targetPath;
+    private CheckResult checkResult;
+    private CheckMethod checkMethod;
+    private long sourceFileLength;
+    private long sampledBytes = -1;
+    private String checkSumAlgorithm;
+    private String sourceChecksum;
+    private String targetChecksum;
+
+    public CheckRecord() {
+    }
+
+    /**
+     * 由检查报告生成记录，relativeSourcePath为relativize后的源文件路径。
+     */
+    public static CheckRecord fromReport(CheckReport checkReport, String relativeSourcePath, String targetRoot) {
+        CheckRecord checkRecord = new CheckRecord();
+        String destFilePath = checkReport.getDestFilePath();
+        if (NONE.equals(destFilePath)) {
+            checkRecord.targetEncoding = TARGET_NONE;
+        } else if (destFilePath.equals(resolve(relativeSourcePath, targetRoot))) {
+            checkRecord.targetEncoding = TARGET_SAME_RELATIVE_PATH;
+        } else {
+            checkRecord.targetEncoding = TARGET_EXPLICIT;
+            checkRecord.targetPath = relativize(destFilePath, targetRoot);
+        }
+        checkRecord.checkResult = checkReport.getCheckResult();
+        checkRecord.checkMethod = checkReport.getCheckMethod();
+        checkRecord.sourceFileLength = checkReport.getSourceFileLength();
+        checkRecord.sampledBytes = checkReport.getSampledBytes();
+        checkRecord.checkSumAlgorithm = checkReport.getCheckSumAlgorithm();
+        checkRecord.sourceChecksum = checkReport.getSourceChecksum();
+        checkRecord.targetChecksum = checkReport.getTargetChecksum();
+        return checkRecord;
+    }
+
+    /**
+     * 还原成检查报告，relativeSourcePath为记录的key。
+     */
+    public CheckReport toReport(String relativeSourcePath, String sourceRoot, String targetRoot) {
+        String destFilePath;
+        switch (this.targetEncoding) {
+            case TARGET_SAME_RELATIVE_PATH:
+                destFilePath = resolve(relativeSourcePath, targetRoot);
+                break;
+            case TARGET_EXPLICIT:
+                destFilePath = resolve(this.targetPath, targetRoot);
+                break;
+            default:
+                destFilePath = null;
+        }
+        // 只存在于目的端的文件没有源文件
+        String sourceFilePath = this.checkResult == CheckResult.TARGET_ONLY ? null
+                : resolve(relativeSourcePath, sourceRoot);
+        return new CheckReport(sourceFilePath, destFilePath, this.checkSumAlgorithm,
+                this.sourceChecksum, this.targetChecksum, this.checkResult, this.checkMethod, this.sourceFileLength,
+                this.sampledBytes);
+    }
+
+    public CheckResult getCheckResult() {
+        return checkResult;
+    }
+
+    public long getSourceFileLength() {
+        return sourceFileLength;
+    }
+
+    /**
+     * 去掉路径中root的前缀，不在root下的路径保持不变。
+     */
+    public static String relativize(String path, String root) {
+        String prefix = root.endsWith("/") ? root : root + "/";
+        if (path.startsWith(prefix) && path.length() > prefix.length()) {
+            return path.substring(prefix.length());
+        }
+        return path;
+    }
+
+    public static String resolve(String relativePath, String root) {
+        if (relativePath.startsWith("/") || relativePath.contains(":/")) {
+            // 不在root下的完整路径
+            return relativePath;
+        }
+        return root.endsWith("/") ? root + relativePath : root + "/" + relativePath;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(this.targetEncoding);
+        if (this.targetEncoding == TARGET_EXPLICIT) {
+            Text.writeString(out, this.targetPath);
+        }
+        out.writeByte(this.checkResult.ordinal());
+        out.writeByte(this.checkMethod.ordinal());
+        WritableUtils.writeVLong(out, this.sourceFileLength);
+        if (this.checkMethod == CheckMethod.SAMPLED) {
+            // 只有抽样检查的记录保存抽样的字节数，之前的检查报告仍然可以读取
+            WritableUtils.writeVLong(out, this.sampledBytes);
+        }
+        Text.writeString(out, NONE.equals(this.checkSumAlgorithm) ? "" : this.checkSumAlgorithm);
+        writeChecksum(out, this.checkSumAlgorithm, this.sourceChecksum);
+        writeChecksum(out, this.checkSumAlgorithm, this.targetChecksum);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.targetEncoding = in.readByte();
+        this.targetPath = this.targetEncoding == TARGET_EXPLICIT ? Text.readString(in) : null;
+        this.checkResult = CheckResult.values()[in.readByte()];
+        this.checkMethod = CheckMethod.values()[in.readByte()];
+        this.sourceFileLength = WritableUtils.readVLong(in);
+        this.sampledBytes = this.checkMethod == CheckMethod.SAMPLED ? WritableUtils.readVLong(in) : -1;
+        String algorithm = Text.readString(in);
+        this.checkSumAlgorithm = algorithm.isEmpty() ? NONE : algorithm;
+        this.sourceChecksum = readChecksum(in);
+        this.targetChecksum = readChecksum(in);
+    }
+
+    private static void writeChecksum(DataOutput out, String algorithm, String checksum) throws IOException {
+        if (NONE.equals(checksum)) {
+            out.writeByte(CHECKSUM_NONE);
+            return;
+        }
+        if ("CRC64".equals(algorithm)) {
+            try {
+                long crc64 = Long.parseLong(checksum);
+                out.writeByte(CHECKSUM_LONG);
+                out.writeLong(crc64);
+                return;
+            } catch (NumberFormatException ignored) {
+                // 按字符串保存
+            }
+        } else if (checksum.length() % 2 == 0 && checksum.matches("[0-9a-f]+")) {
+            byte[] bytes = StringUtils.hexStringToByte(checksum);
+            out.writeByte(CHECKSUM_HEX);
+            WritableUtils.writeVInt(out, bytes.length);
+            out.write(bytes);
+            return;
+        }
+        out.writeByte(CHECKSUM_STRING);
+        Text.writeString(out, checksum);
+    }
+
+    private static String readChecksum(DataInput in) throws IOException {
+        byte encoding = in.readByte();
+        switch (encoding) {
+            case CHECKSUM_NONE:
+                return NONE;
+            case CHECKSUM_LONG:
+                return String.valueOf(in.readLong());
+            case CHECKSUM_HEX:
+                byte[] bytes = new byte[WritableUtils.readVInt(in)];
+                in.readFully(bytes);
+                return StringUtils.byteToHexString(bytes);
+            case CHECKSUM_STRING:
+                return Text.readString(in);
+            default:
+                throw new IOException(String.format("Unknown checksum encoding: %d.", encoding));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CheckRecord{" +
+                "checkResult=" + checkResult +
+                ", checkMethod=" + checkMethod +
+                ", sourceFileLength=" + sourceFileLength +
+                ", sampledBytes=" + sampledBytes +
+                ", checkSumAlgorithm='" + checkSumAlgorithm + '\'' +
+                ", sourceChecksum='" + sourceChecksum + '\'' +
+                ", targetChecksum='" + targetChecksum + '\'' +
+                '}';
+    }
+}
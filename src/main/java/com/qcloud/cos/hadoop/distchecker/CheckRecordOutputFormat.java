@@ -0,0 +1,49 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+
+/**
+ * 以SequenceFile输出二进制格式的检查报告。
+ * 源工作目录和目的工作目录保存在文件头的metadata中，每条记录中只保存相对路径。
+ */
+public class CheckRecordOutputFormat extends SequenceFileOutputFormat<Text, CheckRecord> {
+    public static final String SOURCE_ROOT_METADATA = "hadoop.cos.dist.checker.source.root";
+    public static final String TARGET_ROOT_METADATA = "hadoop.cos.dist.checker.target.root";
+
+    @Override
+    protected SequenceFile.Writer getSequenceWriter(TaskAttemptContext context, Class<?> keyClass,
+                                                    Class<?> valueClass) throws IOException {
+        Configuration configuration = context.getConfiguration();
+
+        CompressionCodec codec = null;
+        SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+        if (getCompressOutput(context)) {
+            compressionType = getOutputCompressionType(context);
+            Class<?> codecClass = getOutputCompressorClass(context, DefaultCodec.class);
+            codec = (CompressionCodec) ReflectionUtils.newInstance(codecClass, configuration);
+        }
+
+        SequenceFile.Metadata metadata = new SequenceFile.Metadata();
+        metadata.set(new Text(SOURCE_ROOT_METADATA), new Text(configuration.get(Constants.SOURCE_WORK_DIR_KEY)));
+        metadata.set(new Text(TARGET_ROOT_METADATA), new Text(configuration.get(Constants.TARGET_WORK_DIR_KEY)));
+
+        Path file = getDefaultWorkFile(context, "");
+        return SequenceFile.createWriter(configuration,
+                SequenceFile.Writer.file(file),
+                SequenceFile.Writer.keyClass(keyClass),
+                SequenceFile.Writer.valueClass(valueClass),
+                SequenceFile.Writer.compression(compressionType, codec),
+                SequenceFile.Writer.progressable(context),
+                SequenceFile.Writer.metadata(metadata));
+    }
+}
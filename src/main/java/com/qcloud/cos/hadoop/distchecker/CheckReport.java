@@ -10,21 +10,61 @@ public class CheckReport implements Serializable {
     private final String sourceChecksum;
     private final String targetChecksum;
     private final CheckResult checkResult;
+    private final CheckMethod checkMethod;
+    private final long sourceFileLength;        // 源文件的长度，未知时为-1，不输出到文本格式的检查报告中
+    private final long sampledBytes;            // 抽样比较的字节数，只有SAMPLED的检查报告才有
 
     public CheckReport(String sourceFilePath, String destFilePath, String checkSumAlgorithm, String checksum,
                        String targetChecksum, CheckResult checkResult) {
+        this(sourceFilePath, destFilePath, checkSumAlgorithm, checksum, targetChecksum, checkResult,
+                CheckMethod.NONE);
+    }
+
+    public CheckReport(String sourceFilePath, String destFilePath, String checkSumAlgorithm, String checksum,
+                       String targetChecksum, CheckResult checkResult, CheckMethod checkMethod) {
+        this(sourceFilePath, destFilePath, checkSumAlgorithm, checksum, targetChecksum, checkResult, checkMethod, -1);
+    }
+
+    public CheckReport(String sourceFilePath, String destFilePath, String checkSumAlgorithm, String checksum,
+                       String targetChecksum, CheckResult checkResult, CheckMethod checkMethod,
+                       long sourceFileLength) {
+        this(sourceFilePath, destFilePath, checkSumAlgorithm, checksum, targetChecksum, checkResult, checkMethod,
+                sourceFileLength, -1);
+    }
+
+    public CheckReport(String sourceFilePath, String destFilePath, String checkSumAlgorithm, String checksum,
+                       String targetChecksum, CheckResult checkResult, CheckMethod checkMethod,
+                       long sourceFileLength, long sampledBytes) {
         this.sourceFilePath = sourceFilePath == null ? "None" : sourceFilePath;
         this.destFilePath = destFilePath == null ? "None" : destFilePath;
         this.checkSumAlgorithm = checkSumAlgorithm == null ? "None" : checkSumAlgorithm;
         this.sourceChecksum = checksum == null ? "None" : checksum;
         this.targetChecksum = targetChecksum == null ? "None" : targetChecksum;
         this.checkResult = checkResult == null ? CheckResult.UNCHECKED : checkResult;
+        this.checkMethod = checkMethod == null ? CheckMethod.NONE : checkMethod;
+        this.sourceFileLength = sourceFileLength;
+        this.sampledBytes = sampledBytes;
+    }
+
+    /**
+     * 返回一个带有源文件长度的检查报告。
+     */
+    public CheckReport withSourceFileLength(long sourceFileLength) {
+        return new CheckReport(this.sourceFilePath, this.destFilePath, this.checkSumAlgorithm, this.sourceChecksum,
+                this.targetChecksum, this.checkResult, this.checkMethod, sourceFileLength, this.sampledBytes);
     }
 
     public String getSourceFilePath() {
         return sourceFilePath;
     }
 
+    /**
+     * 检查报告的key：一般为源文件路径，只存在于目的端的文件没有源文件，使用目的文件路径。
+     */
+    public String getKeyPath() {
+        return checkResult == CheckResult.TARGET_ONLY ? destFilePath : sourceFilePath;
+    }
+
     public String getDestFilePath() {
         return destFilePath;
     }
@@ -45,8 +85,27 @@ public class CheckReport implements Serializable {
         return checkResult;
     }
 
+    public CheckMethod getCheckMethod() {
+        return checkMethod;
+    }
+
+    public long getSourceFileLength() {
+        return sourceFileLength;
+    }
+
+    public long getSampledBytes() {
+        return sampledBytes;
+    }
+
+    /**
+     * 抽样检查的报告在最后多一列"抽样字节数/源文件长度"，表示抽样覆盖的比例。
+     */
     @Override
     public String toString() {
-        return sourceFilePath + "," + destFilePath + "," + checkSumAlgorithm + "," + sourceChecksum + "," + targetChecksum + "," + checkResult.name() + "," + "'" + checkResult.getDescription() + "'";
+        String text = sourceFilePath + "," + destFilePath + "," + checkSumAlgorithm + "," + sourceChecksum + "," + targetChecksum + "," + checkResult.name() + "," + "'" + checkResult.getDescription() + "'" + "," + checkMethod.name();
+        if (checkMethod == CheckMethod.SAMPLED) {
+            text += "," + sampledBytes + "/" + sourceFileLength;
+        }
+        return text;
     }
 }
@@ -0,0 +1,68 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * 按照hadoop.cos.dist.checker.report.format输出检查报告，同时累加各个检查结果的文件数和字节数计数器。
+ */
+public class CheckReportWriter implements CheckPipeline.ReportWriter {
+    public static final String REPORT_FORMAT_TEXT = "text";
+    public static final String REPORT_FORMAT_BINARY = "binary";
+
+    /**
+     * 实际写出检查报告，例如context.write或者MultipleOutputs.write。
+     */
+    public interface Sink {
+        void write(Text key, Writable value) throws IOException, InterruptedException;
+    }
+
+    private final TaskAttemptContext context;
+    private final Sink sink;
+    private final boolean binary;
+    private final String sourceRoot;
+    private final String targetRoot;
+
+    public CheckReportWriter(TaskAttemptContext context, Sink sink) {
+        this.context = context;
+        this.sink = sink;
+        this.binary = isBinary(context.getConfiguration());
+        this.sourceRoot = context.getConfiguration().get(Constants.SOURCE_WORK_DIR_KEY);
+        this.targetRoot = context.getConfiguration().get(Constants.TARGET_WORK_DIR_KEY);
+    }
+
+    @Override
+    public void write(String key, CheckReport checkReport) throws IOException, InterruptedException {
+        CheckSummary.count(this.context, checkReport);
+        if (this.binary) {
+            // 只存在于目的端的文件以相对于目的工作目录的路径作为key
+            String relativeSourcePath = checkReport.getCheckResult() == CheckResult.TARGET_ONLY
+                    ? CheckRecord.relativize(checkReport.getDestFilePath(), this.targetRoot)
+                    : CheckRecord.relativize(checkReport.getSourceFilePath(), this.sourceRoot);
+            this.sink.write(new Text(relativeSourcePath),
+                    CheckRecord.fromReport(checkReport, relativeSourcePath, this.targetRoot));
+        } else {
+            this.sink.write(new Text(key), new Text(checkReport.toString()));
+        }
+    }
+
+    public static boolean isBinary(Configuration configuration) {
+        String reportFormat = configuration.get(Constants.REPORT_FORMAT_KEY, Constants.DEFAULT_REPORT_FORMAT);
+        if (REPORT_FORMAT_BINARY.equalsIgnoreCase(reportFormat)) {
+            return true;
+        }
+        if (!REPORT_FORMAT_TEXT.equalsIgnoreCase(reportFormat)) {
+            throw new IllegalArgumentException(String.format("Unknown %s: %s.", Constants.REPORT_FORMAT_KEY,
+                    reportFormat));
+        }
+        return false;
+    }
+
+    public static Class<? extends Writable> getValueClass(Configuration configuration) {
+        return isBinary(configuration) ? CheckRecord.class : Text.class;
+    }
+}
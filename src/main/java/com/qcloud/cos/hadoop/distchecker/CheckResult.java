@@ -1,5 +1,8 @@
 package com.qcloud.cos.hadoop.distchecker;
 
+/**
+ * 二进制格式的检查报告中保存的是序号，新的检查结果只能添加在最后。
+ */
 public enum CheckResult {
     SUCCESS("The source file and the target file are the same."),
     MISMATCH("The source file and target file are different."),
@@ -7,7 +10,8 @@ public enum CheckResult {
     UNCHECKED("The source file is inaccessible and its MD5 checksum."),
     SOURCE_FILE_MISSING("The source file is missing."),
     TARGET_FILE_MISSING("The target file is missing."),
-    TARGET_FILESYSTEM_ERROR("The target file system is error.");
+    TARGET_FILESYSTEM_ERROR("The target file system is error."),
+    TARGET_ONLY("The target file has no corresponding source file.");
 
     private String description;
 
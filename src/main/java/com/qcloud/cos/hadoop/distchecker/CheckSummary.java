@@ -0,0 +1,127 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 各个检查结果的文件数和源文件字节数以及各种校验方式的文件数，由任务中的计数器累加，作业结束后汇总输出，
+ * 不需要再扫描检查报告。
+ */
+public class CheckSummary {
+    public static final String COUNT_GROUP = "CheckResult";
+    public static final String BYTES_GROUP = "CheckResultBytes";
+    public static final String METHOD_GROUP = "CheckMethod";
+    public static final String SAMPLING_GROUP = "Sampling";
+    public static final String SKIPPED_FILES_COUNTER = "SKIPPED_FILES";
+    public static final String SAMPLED_BYTES_COUNTER = "SAMPLED_BYTES";
+    public static final String SAMPLED_FILE_BYTES_COUNTER = "SAMPLED_FILE_BYTES";
+    public static final String SUMMARY_FILE_NAME = "_SUMMARY";
+
+    private final long[] counts = new long[CheckResult.values().length];
+    private final long[] bytes = new long[CheckResult.values().length];
+    private final long[] methodCounts = new long[CheckMethod.values().length];
+    private long skippedFiles = 0;
+    private long sampledBytes = 0;
+    private long sampledFileBytes = 0;
+
+    public static void count(TaskAttemptContext context, CheckReport checkReport) {
+        count(context, checkReport.getCheckResult(), checkReport.getCheckMethod(), checkReport.getSourceFileLength());
+        if (checkReport.getCheckMethod() == CheckMethod.SAMPLED) {
+            context.getCounter(SAMPLING_GROUP, SAMPLED_BYTES_COUNTER).increment(checkReport.getSampledBytes());
+            context.getCounter(SAMPLING_GROUP, SAMPLED_FILE_BYTES_COUNTER).increment(
+                    checkReport.getSourceFileLength());
+        }
+    }
+
+    /**
+     * 抽样检查时没有被抽中的文件不输出检查报告，只计入这个计数器。
+     */
+    public static void countSkipped(TaskAttemptContext context) {
+        context.getCounter(SAMPLING_GROUP, SKIPPED_FILES_COUNTER).increment(1);
+    }
+
+    /**
+     * sourceFileLength未知时为-1，不计入字节数。
+     */
+    public static void count(TaskAttemptContext context, CheckResult checkResult, CheckMethod checkMethod,
+                             long sourceFileLength) {
+        String result = checkResult.name();
+        context.getCounter(COUNT_GROUP, result).increment(1);
+        if (sourceFileLength > 0) {
+            context.getCounter(BYTES_GROUP, result).increment(sourceFileLength);
+        }
+        context.getCounter(METHOD_GROUP, checkMethod.name()).increment(1);
+    }
+
+    /**
+     * 累加一个作业的计数器，分轮执行的作业需要累加每一轮的计数器。
+     */
+    public void add(Counters counters) {
+        for (CheckResult checkResult : CheckResult.values()) {
+            Counter countCounter = counters.findCounter(COUNT_GROUP, checkResult.name());
+            Counter bytesCounter = counters.findCounter(BYTES_GROUP, checkResult.name());
+            this.counts[checkResult.ordinal()] += countCounter.getValue();
+            this.bytes[checkResult.ordinal()] += bytesCounter.getValue();
+        }
+        for (CheckMethod checkMethod : CheckMethod.values()) {
+            this.methodCounts[checkMethod.ordinal()] += counters.findCounter(METHOD_GROUP, checkMethod.name())
+                    .getValue();
+        }
+        this.skippedFiles += counters.findCounter(SAMPLING_GROUP, SKIPPED_FILES_COUNTER).getValue();
+        this.sampledBytes += counters.findCounter(SAMPLING_GROUP, SAMPLED_BYTES_COUNTER).getValue();
+        this.sampledFileBytes += counters.findCounter(SAMPLING_GROUP, SAMPLED_FILE_BYTES_COUNTER).getValue();
+    }
+
+    public long getCount(CheckResult checkResult) {
+        return this.counts[checkResult.ordinal()];
+    }
+
+    public long getBytes(CheckResult checkResult) {
+        return this.bytes[checkResult.ordinal()];
+    }
+
+    public long getCount(CheckMethod checkMethod) {
+        return this.methodCounts[checkMethod.ordinal()];
+    }
+
+    public void write(FileSystem fs, Path summaryPath) throws IOException {
+        try (FSDataOutputStream outputStream = fs.create(summaryPath, true)) {
+            outputStream.write(this.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 每行一个检查结果：检查结果、文件数、源文件字节数，以制表符分隔；之后每行一个校验方式：校验方式、文件数。
+     * 抽样检查时最后还有没有被抽中的文件数，以及抽样比较的字节数和这些文件的总字节数。
+     */
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        long totalCount = 0;
+        long totalBytes = 0;
+        for (CheckResult checkResult : CheckResult.values()) {
+            stringBuilder.append(checkResult.name()).append('\t')
+                    .append(this.getCount(checkResult)).append('\t')
+                    .append(this.getBytes(checkResult)).append('\n');
+            totalCount += this.getCount(checkResult);
+            totalBytes += this.getBytes(checkResult);
+        }
+        stringBuilder.append("TOTAL").append('\t').append(totalCount).append('\t').append(totalBytes).append('\n');
+        for (CheckMethod checkMethod : CheckMethod.values()) {
+            stringBuilder.append(checkMethod.name()).append('\t').append(this.getCount(checkMethod)).append('\n');
+        }
+        if (this.skippedFiles > 0 || this.sampledFileBytes > 0) {
+            stringBuilder.append(SKIPPED_FILES_COUNTER).append('\t').append(this.skippedFiles).append('\n');
+            stringBuilder.append(SAMPLED_BYTES_COUNTER).append('\t').append(this.sampledBytes).append('\t')
+                    .append(this.sampledFileBytes).append('\n');
+        }
+        return stringBuilder.toString();
+    }
+}
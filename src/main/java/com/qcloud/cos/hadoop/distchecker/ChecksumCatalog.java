@@ -0,0 +1,52 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 读取上一次检查生成的校验值目录。
+ * 目录由CatalogMergeReducer按HashPartitioner分区写成多个MapFile，以源文件的完整路径为key。
+ */
+public class ChecksumCatalog implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(ChecksumCatalog.class);
+
+    // 检查任务输出新的目录项的named output
+    public static final String NAMED_OUTPUT = "catalog";
+
+    private final MapFile.Reader[] readers;
+    private final HashPartitioner<Text, CatalogEntry> partitioner = new HashPartitioner<>();
+
+    public ChecksumCatalog(Path catalogPath, Configuration configuration) throws IOException {
+        this.readers = MapFileOutputFormat.getReaders(catalogPath, configuration);
+        LOG.info("Open the checksum catalog [{}] with {} partitions.", catalogPath, this.readers.length);
+    }
+
+    /**
+     * 查询源文件的目录项，不存在时返回null。
+     * MapFile.Reader不是线程安全的，这里需要同步。
+     */
+    public synchronized CatalogEntry get(Path sourceFilePath) throws IOException {
+        if (this.readers.length == 0) {
+            return null;
+        }
+        CatalogEntry catalogEntry = new CatalogEntry();
+        return (CatalogEntry) MapFileOutputFormat.getEntry(this.readers, this.partitioner,
+                new Text(sourceFilePath.toString()), catalogEntry);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MapFile.Reader reader : this.readers) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 将检查过程中得到的源文件CRC64通过MultipleOutputs写到catalog-m-xxxxx或catalog-r-xxxxx文件中，
+ * 作业结束后再与上一次的校验值目录合并。
+ * 文件可能在多个线程中同时检查，写出时需要同步。
+ */
+public class ChecksumCatalogWriter implements FileChecker.ChecksumRecorder {
+    private final MultipleOutputs<?, ?> multipleOutputs;
+
+    public ChecksumCatalogWriter(MultipleOutputs<?, ?> multipleOutputs) {
+        this.multipleOutputs = multipleOutputs;
+    }
+
+    @Override
+    public void record(Path sourceFilePath, FileStatus sourceFileStatus, long crc64) throws IOException {
+        CatalogEntry catalogEntry = new CatalogEntry(sourceFileStatus.getLen(),
+                sourceFileStatus.getModificationTime(), crc64, System.currentTimeMillis());
+        synchronized (this.multipleOutputs) {
+            try {
+                this.multipleOutputs.write(ChecksumCatalog.NAMED_OUTPUT, new Text(sourceFilePath.toString()),
+                        catalogEntry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(String.format(
+                        "Writing the catalog entry of the source file [%s] is interrupted.", sourceFilePath));
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+/**
+ * 读取文件内容计算校验值，一次读取可以同时更新多个ChecksumDigest。
+ */
+public interface ChecksumDigest {
+    void update(byte[] b, int off, int len);
+
+    ChecksumValue getValue();
+}
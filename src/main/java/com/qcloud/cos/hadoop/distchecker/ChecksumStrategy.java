@@ -0,0 +1,20 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import java.io.IOException;
+
+/**
+ * 一种比较源文件和目的文件的校验值算法，由{@link ChecksumStrategyRegistry}按配置的顺序加载。
+ * 实现类需要有无参构造函数，实现了Configurable时会传入作业的配置；同一个实例会在多个线程中同时使用。
+ */
+public interface ChecksumStrategy {
+    /**
+     * 返回文件元数据中已经保存的这种算法的校验值，没有或者无法用于比较时返回null。
+     */
+    ChecksumValue getStoredChecksum(FileMetadata fileMetadata) throws IOException;
+
+    /**
+     * 创建读取文件内容计算校验值的ChecksumDigest，算出的校验值与expected的算法相同。
+     * 不支持通过读取文件内容计算时返回null。
+     */
+    ChecksumDigest newDigest(ChecksumValue expected);
+}
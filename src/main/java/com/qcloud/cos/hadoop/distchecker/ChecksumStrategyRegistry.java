@@ -0,0 +1,57 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按hadoop.cos.dist.checker.checksum.strategies加载校验值算法，配置中可以使用内置算法的简称或者完整的类名，
+ * 排在前面的算法优先使用，因此应该按计算的代价从小到大排列。
+ */
+public class ChecksumStrategyRegistry {
+    private static final Map<String, Class<? extends ChecksumStrategy>> BUILTIN_STRATEGIES = new HashMap<>();
+
+    static {
+        BUILTIN_STRATEGIES.put("crc64", CRC64ChecksumStrategy.class);
+        BUILTIN_STRATEGIES.put("composite-crc", CompositeCrcChecksumStrategy.class);
+        BUILTIN_STRATEGIES.put("etag", ETagChecksumStrategy.class);
+        BUILTIN_STRATEGIES.put("file-checksum", FileChecksumStrategy.class);
+    }
+
+    private final List<ChecksumStrategy> strategies;
+
+    public ChecksumStrategyRegistry(Configuration configuration) {
+        List<ChecksumStrategy> strategies = new ArrayList<>();
+        for (String name : StringUtils.getTrimmedStrings(configuration.get(Constants.CHECKSUM_STRATEGIES_KEY,
+                Constants.DEFAULT_CHECKSUM_STRATEGIES))) {
+            strategies.add(ReflectionUtils.newInstance(getStrategyClass(configuration, name), configuration));
+        }
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException(String.format("The %s is empty.", Constants.CHECKSUM_STRATEGIES_KEY));
+        }
+        this.strategies = Collections.unmodifiableList(strategies);
+    }
+
+    public List<ChecksumStrategy> getStrategies() {
+        return strategies;
+    }
+
+    private static Class<? extends ChecksumStrategy> getStrategyClass(Configuration configuration, String name) {
+        Class<? extends ChecksumStrategy> strategyClass = BUILTIN_STRATEGIES.get(name.toLowerCase());
+        if (null != strategyClass) {
+            return strategyClass;
+        }
+        try {
+            return configuration.getClassByName(name).asSubclass(ChecksumStrategy.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IllegalArgumentException(String.format("Unknown checksum strategy [%s] in the %s.", name,
+                    Constants.CHECKSUM_STRATEGIES_KEY), e);
+        }
+    }
+}
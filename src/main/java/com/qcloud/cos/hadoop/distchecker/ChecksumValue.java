@@ -0,0 +1,51 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import java.util.Objects;
+
+/**
+ * 一个文件的校验值，只有算法相同的校验值才能比较。
+ * value是检查报告中输出的字符串形式，例如CRC64为有符号的十进制数，其他算法为十六进制。
+ */
+public final class ChecksumValue {
+    private final String algorithm;
+    private final String value;
+
+    public ChecksumValue(String algorithm, String value) {
+        this.algorithm = algorithm;
+        this.value = value;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isComparableWith(ChecksumValue other) {
+        return null != other && this.algorithm.equals(other.algorithm);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChecksumValue that = (ChecksumValue) o;
+        return algorithm.equals(that.algorithm) && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(algorithm, value);
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + ":" + value;
+    }
+}
@@ -0,0 +1,53 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.util.CrcUtil;
+import org.apache.hadoop.util.PureJavaCrc32;
+import org.apache.hadoop.util.PureJavaCrc32C;
+import org.apache.hadoop.util.StringUtils;
+
+import java.util.zip.Checksum;
+
+/**
+ * 与块大小无关的整个文件的CRC32C或者CRC32。HDFS将dfs.checksum.combine.mode设置为COMPOSITE_CRC，
+ * CosN开启fs.cosn.crc32c.checksum.enabled时，getFileChecksum返回这种校验和。
+ * 它就是整个文件内容的CRC，因此也可以通过读取源文件计算。
+ */
+public class CompositeCrcChecksumStrategy implements ChecksumStrategy {
+    public static final String CRC32C_ALGORITHM = "COMPOSITE-CRC32C";
+    public static final String CRC32_ALGORITHM = "COMPOSITE-CRC32";
+
+    @Override
+    public ChecksumValue getStoredChecksum(FileMetadata fileMetadata) {
+        FileChecksum fileChecksum = fileMetadata.getFileChecksum();
+        if (null == fileChecksum || !(CRC32C_ALGORITHM.equals(fileChecksum.getAlgorithmName())
+                || CRC32_ALGORITHM.equals(fileChecksum.getAlgorithmName()))) {
+            return null;
+        }
+        return new ChecksumValue(fileChecksum.getAlgorithmName(), StringUtils.byteToHexString(fileChecksum.getBytes()));
+    }
+
+    @Override
+    public ChecksumDigest newDigest(ChecksumValue expected) {
+        final String algorithm = expected.getAlgorithm();
+        final Checksum crc;
+        if (CRC32C_ALGORITHM.equals(algorithm)) {
+            crc = new PureJavaCrc32C();
+        } else if (CRC32_ALGORITHM.equals(algorithm)) {
+            crc = new PureJavaCrc32();
+        } else {
+            return null;
+        }
+        return new ChecksumDigest() {
+            @Override
+            public void update(byte[] b, int off, int len) {
+                crc.update(b, off, len);
+            }
+
+            @Override
+            public ChecksumValue getValue() {
+                return new ChecksumValue(algorithm, StringUtils.byteToHexString(CrcUtil.intToBytes((int) crc.getValue())));
+            }
+        };
+    }
+}
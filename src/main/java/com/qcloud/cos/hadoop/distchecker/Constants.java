@@ -4,4 +4,161 @@ public final class Constants {
     public static final int SUCCESS = 0;
     public static final int INVALID_ARGUMENT = -1;
     public static final int UNKNOWN_ERROR = -1000;
+
+    public static final String SOURCE_WORK_DIR_KEY = "hadoop.cos.dist.checker.source.work.dir";
+    public static final String TARGET_WORK_DIR_KEY = "hadoop.cos.dist.checker.target.work.dir";
+
+    // 大文件分段并行计算CRC64的段大小
+    public static final String CRC64_RANGE_SIZE_KEY = "hadoop.cos.dist.checker.crc64.range.size";
+    public static final long DEFAULT_CRC64_RANGE_SIZE = 128 * 1024 * 1024L;
+
+    // 单个文件并行计算CRC64的线程数，为1时表示顺序读取整个文件
+    public static final String CRC64_RANGE_PARALLELISM_KEY = "hadoop.cos.dist.checker.crc64.range.parallelism";
+    public static final int DEFAULT_CRC64_RANGE_PARALLELISM = 1;
+
+    // 本地库libcrc64ecma可用时使用PCLMULQDQ指令计算CRC64
+    public static final String CRC64_NATIVE_ENABLED_KEY = "hadoop.cos.dist.checker.crc64.native.enabled";
+    public static final boolean DEFAULT_CRC64_NATIVE_ENABLED = true;
+
+    // 超过这个长度的文件会被切分到多个map任务上计算CRC64，再由reduce合并，小于等于0表示不切分
+    public static final String LARGE_FILE_THRESHOLD_KEY = "hadoop.cos.dist.checker.large.file.threshold";
+    public static final long DEFAULT_LARGE_FILE_THRESHOLD = -1;
+
+    // 大文件切分到每个map任务上的分片大小
+    public static final String LARGE_FILE_SPLIT_SIZE_KEY = "hadoop.cos.dist.checker.large.file.split.size";
+    public static final long DEFAULT_LARGE_FILE_SPLIT_SIZE = 1024 * 1024 * 1024L;
+
+    // 优先使用两端文件系统元数据中已有的校验值进行比较，无法比较时再读取源文件计算CRC64
+    public static final String METADATA_CHECKSUM_ENABLED_KEY = "hadoop.cos.dist.checker.metadata.checksum.enabled";
+    public static final boolean DEFAULT_METADATA_CHECKSUM_ENABLED = false;
+
+    // 比较校验值的算法，按代价从小到大排列：crc64、composite-crc、etag、file-checksum，也可以是ChecksumStrategy的类名
+    public static final String CHECKSUM_STRATEGIES_KEY = "hadoop.cos.dist.checker.checksum.strategies";
+    public static final String DEFAULT_CHECKSUM_STRATEGIES = "crc64,composite-crc,etag,file-checksum";
+
+    // HDFS的文件校验和合并方式，COMPOSITE_CRC与块大小无关，可以和其他文件系统的CRC32C进行比较
+    public static final String DFS_CHECKSUM_COMBINE_MODE_KEY = "dfs.checksum.combine.mode";
+    public static final String DFS_CHECKSUM_COMBINE_MODE_COMPOSITE_CRC = "COMPOSITE_CRC";
+
+    // 按父目录列目录并缓存文件元数据，代替逐个文件的exists/getFileStatus请求
+    public static final String LISTING_CACHE_ENABLED_KEY = "hadoop.cos.dist.checker.listing.cache.enabled";
+    public static final boolean DEFAULT_LISTING_CACHE_ENABLED = false;
+
+    // 每个文件系统缓存的FileStatus的最大个数，用于限制缓存占用的内存
+    public static final String LISTING_CACHE_MAX_ENTRIES_KEY = "hadoop.cos.dist.checker.listing.cache.max.entries";
+    public static final long DEFAULT_LISTING_CACHE_MAX_ENTRIES = 500000;
+
+    // 每个map任务中同时检查的文件个数，为1时逐个文件顺序检查
+    public static final String IN_FLIGHT_WINDOW_KEY = "hadoop.cos.dist.checker.inflight.window";
+    public static final int DEFAULT_IN_FLIGHT_WINDOW = 1;
+
+    // 上一次检查输出的校验值目录，源文件的长度和修改时间都没有变化时复用其中的CRC64
+    public static final String CATALOG_INPUT_KEY = "hadoop.cos.dist.checker.catalog.input";
+    // 本次检查结束后输出合并后的校验值目录的路径
+    public static final String CATALOG_OUTPUT_KEY = "hadoop.cos.dist.checker.catalog.output";
+
+    // 由作业自己分轮并行列出源目录，此时源文件列表参数为需要列出的源目录
+    public static final String SOURCE_LISTING_ENABLED_KEY = "hadoop.cos.dist.checker.source.listing.enabled";
+    public static final boolean DEFAULT_SOURCE_LISTING_ENABLED = false;
+    // 每个map任务最多列出的条目数，超过以后剩余的子目录交给下一轮
+    public static final String SOURCE_LISTING_TASK_MAX_ENTRIES_KEY =
+            "hadoop.cos.dist.checker.source.listing.task.max.entries";
+    public static final long DEFAULT_SOURCE_LISTING_TASK_MAX_ENTRIES = 100000L;
+    // 每一轮中分配给每个map任务的目录个数
+    public static final String SOURCE_LISTING_DIRS_PER_TASK_KEY = "hadoop.cos.dist.checker.source.listing.dirs.per.task";
+    public static final int DEFAULT_SOURCE_LISTING_DIRS_PER_TASK = 16;
+
+    // 按照需要读取的字节数均衡切分源文件列表
+    public static final String BALANCED_SPLIT_ENABLED_KEY = "hadoop.cos.dist.checker.balanced.split.enabled";
+    public static final boolean DEFAULT_BALANCED_SPLIT_ENABLED = false;
+    // 均衡切分的分片数，不大于0时按总开销除以每个分片的目标开销计算
+    public static final String BALANCED_SPLIT_NUM_KEY = "hadoop.cos.dist.checker.balanced.split.num";
+    public static final int DEFAULT_BALANCED_SPLIT_NUM = -1;
+    // 均衡切分时每个文件的请求开销，折算成字节数
+    public static final String BALANCED_SPLIT_PER_FILE_COST_KEY = "hadoop.cos.dist.checker.balanced.split.per.file.cost";
+    public static final long DEFAULT_BALANCED_SPLIT_PER_FILE_COST = 4 * 1024 * 1024L;
+    // 没有指定分片数时每个分片的目标开销，折算成字节数
+    public static final String BALANCED_SPLIT_TARGET_COST_KEY = "hadoop.cos.dist.checker.balanced.split.target.cost";
+    public static final long DEFAULT_BALANCED_SPLIT_TARGET_COST = 10 * 1024 * 1024 * 1024L;
+    // 作业提交时按父目录查询源文件的长度，源文件列表中至少有这么多个文件的父目录才列出，否则逐个文件查询
+    public static final String SPLIT_LISTING_MIN_FILES_KEY = "hadoop.cos.dist.checker.split.listing.min.files";
+    public static final int DEFAULT_SPLIT_LISTING_MIN_FILES = 4;
+    // 作业提交时每个父目录最多列出的子项个数，超过后其余的文件逐个查询
+    public static final String SPLIT_LISTING_MAX_ENTRIES_KEY = "hadoop.cos.dist.checker.split.listing.max.entries";
+    public static final long DEFAULT_SPLIT_LISTING_MAX_ENTRIES = 100000L;
+
+    // 按照源文件数据块所在的节点切分源文件列表，使map任务在本地读取源文件，分片数和每个文件的请求开销与均衡切分相同
+    public static final String LOCALITY_SPLIT_ENABLED_KEY = "hadoop.cos.dist.checker.locality.split.enabled";
+    public static final boolean DEFAULT_LOCALITY_SPLIT_ENABLED = false;
+
+    // 源文件列表的格式：text为每行一个路径，sequence为SequenceFile，value为DistCp的CopyListingFileStatus或者FileStatus
+    public static final String SOURCE_LIST_FORMAT_KEY = "hadoop.cos.dist.checker.source.list.format";
+    public static final String DEFAULT_SOURCE_LIST_FORMAT = "text";
+
+    // 同时列出源目录和对应的目的目录，按相对路径归并后检查，并输出只存在于目的目录中的文件，此时源文件列表参数为需要比较的源目录
+    public static final String TARGET_DIFF_ENABLED_KEY = "hadoop.cos.dist.checker.target.diff.enabled";
+    public static final boolean DEFAULT_TARGET_DIFF_ENABLED = false;
+    // 比较源目录和目的目录时的reduce任务数，不大于0时与列出两个目录的map任务数相同
+    public static final String TARGET_DIFF_REDUCES_KEY = "hadoop.cos.dist.checker.target.diff.reduces";
+    public static final int DEFAULT_TARGET_DIFF_REDUCES = -1;
+
+    // 检查结束后按目录汇总两端文件的摘要，输出到检查报告输出路径下的digest目录中
+    public static final String DIGEST_ENABLED_KEY = "hadoop.cos.dist.checker.digest.enabled";
+    public static final boolean DEFAULT_DIGEST_ENABLED = false;
+
+    // 不提交MapReduce作业，在当前JVM中检查源文件列表，适合文件数不多、作业调度开销比检查本身还大的场景
+    public static final String LOCAL_ENABLED_KEY = "hadoop.cos.dist.checker.local.enabled";
+    public static final boolean DEFAULT_LOCAL_ENABLED = false;
+    // 本地检查时同时检查的文件个数
+    public static final String LOCAL_THREADS_KEY = "hadoop.cos.dist.checker.local.threads";
+    public static final int DEFAULT_LOCAL_THREADS = 64;
+    // JDK 21及以上时本地检查使用虚拟线程，否则使用work-stealing线程池
+    public static final String LOCAL_VIRTUAL_THREADS_ENABLED_KEY = "hadoop.cos.dist.checker.local.virtual.threads.enabled";
+    public static final boolean DEFAULT_LOCAL_VIRTUAL_THREADS_ENABLED = true;
+
+    // 从上一次失败的检查报告输出路径续跑，沿用其中已经有确定结果的检查报告，只检查剩余的源文件
+    public static final String RESUME_FROM_KEY = "hadoop.cos.dist.checker.resume.from";
+
+    // 检查报告的格式：text为逗号分隔的文本，binary为压缩的SequenceFile，可以通过ReportDumper还原成文本
+    public static final String REPORT_FORMAT_KEY = "hadoop.cos.dist.checker.report.format";
+    public static final String DEFAULT_REPORT_FORMAT = "text";
+
+    // 整个作业每秒对目的文件系统的元数据请求数上限，平分到同时运行的任务上，不大于0时不限制
+    public static final String TARGET_QPS_KEY = "hadoop.cos.dist.checker.target.qps";
+    // 被限流时每个任务的请求速率下限
+    public static final String TARGET_QPS_MIN_PER_TASK_KEY = "hadoop.cos.dist.checker.target.qps.min.per.task";
+    public static final double DEFAULT_TARGET_QPS_MIN_PER_TASK = 1;
+    // 被限流以后每个任务的请求速率每秒增加的步长
+    public static final String TARGET_QPS_INCREASE_PER_TASK_KEY = "hadoop.cos.dist.checker.target.qps.increase.per.task";
+    public static final double DEFAULT_TARGET_QPS_INCREASE_PER_TASK = 1;
+    // 整个作业每秒读取源文件的字节数上限，平分到同时运行的任务上，不大于0时不限制
+    public static final String READ_BANDWIDTH_KEY = "hadoop.cos.dist.checker.read.bandwidth";
+    // 被限流或者暂时性失败的请求的最大重试次数
+    public static final String RETRY_MAX_ATTEMPTS_KEY = "hadoop.cos.dist.checker.retry.max.attempts";
+    public static final int DEFAULT_RETRY_MAX_ATTEMPTS = 5;
+    // 重试的退避时间：第n次重试在[0, min(max.sleep, base.sleep * 2^n)]毫秒中随机取值
+    public static final String RETRY_BASE_SLEEP_MS_KEY = "hadoop.cos.dist.checker.retry.base.sleep.ms";
+    public static final long DEFAULT_RETRY_BASE_SLEEP_MS = 200;
+    public static final String RETRY_MAX_SLEEP_MS_KEY = "hadoop.cos.dist.checker.retry.max.sleep.ms";
+    public static final long DEFAULT_RETRY_MAX_SLEEP_MS = 20000;
+
+    // 抽样检查的文件比例，取值范围(0, 1]，为1时检查所有文件
+    public static final String SAMPLE_FRACTION_KEY = "hadoop.cos.dist.checker.sample.fraction";
+    public static final double DEFAULT_SAMPLE_FRACTION = 1.0;
+    // 抽样的随机种子，种子和源文件列表相同时抽到的文件和数据段也相同
+    public static final String SAMPLE_SEED_KEY = "hadoop.cos.dist.checker.sample.seed";
+    public static final long DEFAULT_SAMPLE_SEED = 0;
+    // 超过这个长度的文件只比较随机位置的若干段数据的CRC64，小于等于0表示总是比较完整的文件
+    public static final String SAMPLE_RANGE_THRESHOLD_KEY = "hadoop.cos.dist.checker.sample.range.threshold";
+    public static final long DEFAULT_SAMPLE_RANGE_THRESHOLD = -1;
+    // 每个大文件抽样的段数
+    public static final String SAMPLE_RANGE_COUNT_KEY = "hadoop.cos.dist.checker.sample.range.count";
+    public static final int DEFAULT_SAMPLE_RANGE_COUNT = 16;
+    // 抽样的每一段的长度
+    public static final String SAMPLE_RANGE_SIZE_KEY = "hadoop.cos.dist.checker.sample.range.size";
+    public static final long DEFAULT_SAMPLE_RANGE_SIZE = 1024 * 1024L;
+
+    public static final int READ_BUFFER_SIZE = 10 * 1024 * 1024;
+    // 小文件借用的最小读缓冲区
+    public static final int MIN_READ_BUFFER_SIZE = 64 * 1024;
 }
@@ -0,0 +1,138 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.tools.CopyListingFileStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 读取SequenceFile格式的源文件列表的Mapper，例如DistCp输出的fileList.seq，value为CopyListingFileStatus；
+ * 也可以是value为FileStatus的SequenceFile。列表中已经有源文件的长度、修改时间和类型，
+ * 检查时直接使用这些元数据，不再对每个源文件调用exists和getFileStatus，也不再为每一行解析文件系统。
+ */
+public class CopyListingCheckMapper extends Mapper<Writable, Writable, Text, Writable> {
+    private static final Logger LOG = LoggerFactory.getLogger(CopyListingCheckMapper.class);
+
+    public static final String SOURCE_LIST_FORMAT_TEXT = "text";
+    public static final String SOURCE_LIST_FORMAT_SEQUENCE = "sequence";
+
+    private FileChecker fileChecker = null;
+    private CheckReportWriter checkReportWriter = null;
+    private CheckPipeline checkPipeline = null;
+    private MultipleOutputs<Text, Writable> multipleOutputs = null;
+
+    @Override
+    protected void setup(final Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        this.fileChecker = new FileChecker(context.getConfiguration());
+        this.checkReportWriter = new CheckReportWriter(context, context::write);
+        if (null != context.getConfiguration().get(Constants.CATALOG_OUTPUT_KEY)) {
+            this.multipleOutputs = new MultipleOutputs<>(context);
+            this.fileChecker.setChecksumRecorder(new ChecksumCatalogWriter(this.multipleOutputs));
+        }
+
+        int inFlightWindow = context.getConfiguration().getInt(Constants.IN_FLIGHT_WINDOW_KEY,
+                Constants.DEFAULT_IN_FLIGHT_WINDOW);
+        if (inFlightWindow > 1) {
+            LOG.info("Checking at most {} files concurrently.", inFlightWindow);
+            this.checkPipeline = new CheckPipeline(inFlightWindow, this.checkReportWriter);
+        }
+    }
+
+    @Override
+    protected void map(Writable key, Writable value, Context context) throws IOException, InterruptedException {
+        final FileStatus sourceFileStatus = toFileStatus(value);
+        if (null == sourceFileStatus) {
+            // DistCp按块切分的大文件会有多条记录，只检查第一条
+            return;
+        }
+        final String sourceFilePathStr = sourceFileStatus.getPath().toString();
+        try {
+            // 只检查路径是否属于源文件系统，不需要解析文件系统
+            this.fileChecker.getSourceFs().makeQualified(sourceFileStatus.getPath());
+        } catch (IllegalArgumentException e) {
+            LOG.warn("The source path [{}] does not belong to the source file system.", sourceFilePathStr, e);
+            this.checkReportWriter.write(sourceFilePathStr,
+                    new CheckReport(sourceFilePathStr, null, null, null, null, CheckResult.UNCHECKED));
+            return;
+        }
+        if (!this.fileChecker.isSelected(sourceFilePathStr)) {
+            // 抽样检查时没有被抽中的文件不输出检查报告
+            CheckSummary.countSkipped(context);
+            return;
+        }
+
+        if (null != this.checkPipeline) {
+            this.checkPipeline.submit(sourceFilePathStr, () -> this.fileChecker.check(sourceFileStatus));
+            return;
+        }
+        CheckReport checkReport = this.fileChecker.check(sourceFileStatus);
+        this.checkReportWriter.write(sourceFilePathStr, checkReport);
+    }
+
+    public static boolean isSequenceList(Configuration configuration) {
+        String sourceListFormat = configuration.get(Constants.SOURCE_LIST_FORMAT_KEY,
+                Constants.DEFAULT_SOURCE_LIST_FORMAT);
+        if (SOURCE_LIST_FORMAT_SEQUENCE.equalsIgnoreCase(sourceListFormat)) {
+            return true;
+        }
+        if (!SOURCE_LIST_FORMAT_TEXT.equalsIgnoreCase(sourceListFormat)) {
+            throw new IllegalArgumentException(String.format("Unknown %s: %s.", Constants.SOURCE_LIST_FORMAT_KEY,
+                    sourceListFormat));
+        }
+        return false;
+    }
+
+    /**
+     * 将列表中的记录转换成源文件的FileStatus，DistCp按块切分的大文件除第一块以外的记录返回null。
+     */
+    static FileStatus toFileStatus(Writable value) throws IOException {
+        if (value instanceof FileStatus) {
+            return (FileStatus) value;
+        }
+        if (value instanceof CopyListingFileStatus) {
+            CopyListingFileStatus copyListingFileStatus = (CopyListingFileStatus) value;
+            if (copyListingFileStatus.getChunkOffset() > 0) {
+                return null;
+            }
+            return new FileStatus(copyListingFileStatus.getLen(), copyListingFileStatus.isDirectory(),
+                    copyListingFileStatus.getReplication(), copyListingFileStatus.getBlockSize(),
+                    copyListingFileStatus.getModificationTime(), copyListingFileStatus.getAccessTime(),
+                    copyListingFileStatus.getPermission(), copyListingFileStatus.getOwner(),
+                    copyListingFileStatus.getGroup(), copyListingFileStatus.getPath());
+        }
+        throw new IOException(String.format("Unsupported value class of the source file list: %s.",
+                value.getClass().getName()));
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        LOG.info("Begin to clean up the copy listing check mapper.");
+        try {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.flush();
+            }
+            // 汇总本任务各阶段的耗时
+            this.fileChecker.getCheckMetrics().flush(context);
+        } finally {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.close();
+            }
+            if (null != this.multipleOutputs) {
+                this.multipleOutputs.close();
+            }
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+        }
+        super.cleanup(context);
+    }
+}
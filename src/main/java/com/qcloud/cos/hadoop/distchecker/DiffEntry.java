@@ -0,0 +1,77 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 归并源目录和目的目录时按相对路径关联的条目，value为列出的一个源文件或者一个目的文件。
+ * 源文件带上列目录得到的长度和修改时间，检查时不需要再查询源文件的元数据。
+ */
+public class DiffEntry implements Writable {
+    private static final byte SIDE_SOURCE = 0;
+    private static final byte SIDE_TARGET = 1;
+
+    private byte side;
+    private String path;
+    private long length;
+    private long modificationTime;
+
+    public DiffEntry() {
+    }
+
+    public static DiffEntry source(FileStatus sourceFileStatus) {
+        DiffEntry diffEntry = new DiffEntry();
+        diffEntry.side = SIDE_SOURCE;
+        diffEntry.path = sourceFileStatus.getPath().toString();
+        diffEntry.length = sourceFileStatus.getLen();
+        diffEntry.modificationTime = sourceFileStatus.getModificationTime();
+        return diffEntry;
+    }
+
+    public static DiffEntry target(FileStatus targetFileStatus) {
+        DiffEntry diffEntry = new DiffEntry();
+        diffEntry.side = SIDE_TARGET;
+        diffEntry.path = targetFileStatus.getPath().toString();
+        diffEntry.length = targetFileStatus.getLen();
+        diffEntry.modificationTime = targetFileStatus.getModificationTime();
+        return diffEntry;
+    }
+
+    public boolean isSource() {
+        return this.side == SIDE_SOURCE;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 还原成列目录得到的文件元数据，只包含检查需要的字段。
+     */
+    public FileStatus toFileStatus() {
+        return new FileStatus(this.length, false, 0, 0, this.modificationTime, new Path(this.path));
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(this.side);
+        Text.writeString(out, this.path);
+        WritableUtils.writeVLong(out, this.length);
+        WritableUtils.writeVLong(out, this.modificationTime);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.side = in.readByte();
+        this.path = Text.readString(in);
+        this.length = WritableUtils.readVLong(in);
+        this.modificationTime = WritableUtils.readVLong(in);
+    }
+}
@@ -0,0 +1,108 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 按相对路径归并列出的源文件和目的文件：有源文件时和普通的检查一样比较源文件和目的文件，
+ * 只有目的文件时输出TARGET_ONLY的检查报告，源文件路径为None，以目的文件路径作为key。
+ * map阶段输出的key已经按相对路径排序，每个相对路径只需要处理一次，不需要在内存中保存任何一端的文件列表。
+ */
+public class DiffJoinReducer extends Reducer<Text, DiffEntry, Text, Writable> {
+    private static final Logger LOG = LoggerFactory.getLogger(DiffJoinReducer.class);
+
+    private FileChecker fileChecker = null;
+    private CheckReportWriter checkReportWriter = null;
+    private CheckPipeline checkPipeline = null;
+    private MultipleOutputs<Text, Writable> multipleOutputs = null;
+
+    @Override
+    protected void setup(final Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        this.fileChecker = new FileChecker(context.getConfiguration());
+        this.checkReportWriter = new CheckReportWriter(context, context::write);
+        if (null != context.getConfiguration().get(Constants.CATALOG_OUTPUT_KEY)) {
+            this.multipleOutputs = new MultipleOutputs<>(context);
+            this.fileChecker.setChecksumRecorder(new ChecksumCatalogWriter(this.multipleOutputs));
+        }
+
+        int inFlightWindow = context.getConfiguration().getInt(Constants.IN_FLIGHT_WINDOW_KEY,
+                Constants.DEFAULT_IN_FLIGHT_WINDOW);
+        if (inFlightWindow > 1) {
+            LOG.info("Checking at most {} files concurrently.", inFlightWindow);
+            this.checkPipeline = new CheckPipeline(inFlightWindow, this.checkReportWriter);
+        }
+    }
+
+    @Override
+    protected void reduce(Text key, Iterable<DiffEntry> values, Context context)
+            throws IOException, InterruptedException {
+        FileStatus sourceFileStatus = null;
+        String targetFilePathStr = null;
+        for (DiffEntry value : values) {
+            // Hadoop会复用value对象，这里只取出需要的字段
+            if (value.isSource()) {
+                sourceFileStatus = value.toFileStatus();
+            } else {
+                targetFilePathStr = value.getPath();
+            }
+        }
+
+        if (null == sourceFileStatus) {
+            CheckReport checkReport = new CheckReport(null, targetFilePathStr, null, null, null,
+                    CheckResult.TARGET_ONLY);
+            if (null != this.checkPipeline) {
+                // 保持检查报告按key的顺序输出
+                this.checkPipeline.submit(targetFilePathStr, () -> checkReport);
+            } else {
+                this.checkReportWriter.write(targetFilePathStr, checkReport);
+            }
+            return;
+        }
+
+        final FileStatus listedSourceFileStatus = sourceFileStatus;
+        final String sourceFilePathStr = listedSourceFileStatus.getPath().toString();
+        if (!this.fileChecker.isSelected(sourceFilePathStr)) {
+            // 抽样检查时没有被抽中的文件不输出检查报告
+            CheckSummary.countSkipped(context);
+            return;
+        }
+        if (null != this.checkPipeline) {
+            this.checkPipeline.submit(sourceFilePathStr, () -> this.fileChecker.check(listedSourceFileStatus));
+            return;
+        }
+        CheckReport checkReport = this.fileChecker.check(listedSourceFileStatus);
+        this.checkReportWriter.write(sourceFilePathStr, checkReport);
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        LOG.info("Begin to clean up the diff join reducer.");
+        try {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.flush();
+            }
+            // 汇总本任务各阶段的耗时
+            this.fileChecker.getCheckMetrics().flush(context);
+        } finally {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.close();
+            }
+            if (null != this.multipleOutputs) {
+                this.multipleOutputs.close();
+            }
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+        }
+        super.cleanup(context);
+    }
+}
@@ -0,0 +1,106 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * 归并源目录和目的目录时列出目录的Mapper，每一行输入是源目录或者目的目录下的一个直接子项，递归列出其中所有的文件。
+ * 源文件先通过{@link PathMapper}转换成目的路径，再和目的文件一样去掉scheme、authority和目的工作目录的前缀作为key，
+ * 同一个相对路径的源文件和目的文件在reduce阶段归并到一起。
+ */
+public abstract class DiffListingMapper extends Mapper<Object, Text, Text, DiffEntry> {
+    private static final Logger LOG = LoggerFactory.getLogger(DiffListingMapper.class);
+
+    /**
+     * 列出源目录。
+     */
+    public static class Source extends DiffListingMapper {
+        @Override
+        protected Path getWorkingPath(Configuration configuration) {
+            return new Path(configuration.get(Constants.SOURCE_WORK_DIR_KEY));
+        }
+
+        @Override
+        protected void emit(LocatedFileStatus fileStatus, Context context) throws IOException, InterruptedException {
+            context.write(new Text(this.getKey(this.pathMapper.getTargetPath(fileStatus.getPath()))),
+                    DiffEntry.source(fileStatus));
+        }
+    }
+
+    /**
+     * 列出源目录对应的目的目录。
+     */
+    public static class Target extends DiffListingMapper {
+        @Override
+        protected Path getWorkingPath(Configuration configuration) {
+            return new Path(configuration.get(Constants.TARGET_WORK_DIR_KEY));
+        }
+
+        @Override
+        protected void emit(LocatedFileStatus fileStatus, Context context) throws IOException, InterruptedException {
+            context.write(new Text(this.getKey(fileStatus.getPath())), DiffEntry.target(fileStatus));
+        }
+    }
+
+    protected PathMapper pathMapper;
+    private FileSystem fs;
+    private String targetRoot;          // 目的工作目录的路径部分
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        Configuration configuration = context.getConfiguration();
+        Path sourceWorkingPath = new Path(configuration.get(Constants.SOURCE_WORK_DIR_KEY));
+        Path targetWorkingPath = new Path(configuration.get(Constants.TARGET_WORK_DIR_KEY));
+        this.pathMapper = new PathMapper(sourceWorkingPath, targetWorkingPath);
+        this.targetRoot = getPathPart(targetWorkingPath.getFileSystem(configuration).makeQualified(targetWorkingPath));
+        Path workingPath = this.getWorkingPath(configuration);
+        this.fs = workingPath.getFileSystem(configuration);
+    }
+
+    @Override
+    protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+        String pathStr = value.toString().trim();
+        if (pathStr.isEmpty()) {
+            return;
+        }
+        Path path = new Path(pathStr);
+        LOG.info("Listing the files in [{}].", path);
+        try {
+            // 路径本身是文件时只列出它自己
+            RemoteIterator<LocatedFileStatus> iterator = this.fs.listFiles(path, true);
+            while (iterator.hasNext()) {
+                this.emit(iterator.next(), context);
+            }
+        } catch (FileNotFoundException e) {
+            // 提交作业以后被删除了
+            LOG.warn("The path [{}] is missing.", path, e);
+        }
+    }
+
+    protected abstract Path getWorkingPath(Configuration configuration);
+
+    protected abstract void emit(LocatedFileStatus fileStatus, Context context)
+            throws IOException, InterruptedException;
+
+    /**
+     * 目的路径相对于目的工作目录的路径，与scheme和authority的写法无关。
+     */
+    protected String getKey(Path targetFilePath) {
+        return CheckRecord.relativize(getPathPart(targetFilePath), this.targetRoot);
+    }
+
+    private static String getPathPart(Path path) {
+        return Path.getPathWithoutSchemeAndAuthority(path).toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 读取本次的检查报告，把每个文件的摘要输出到它所在的每一级目录上，直到源工作目录为止，由combiner和reducer逐级求和。
+ * 文本格式按行读取，二进制格式按SequenceFile读取。
+ */
+public class DigestMapper extends Mapper<Writable, Writable, Text, DirectoryDigest> {
+    private static final Logger LOG = LoggerFactory.getLogger(DigestMapper.class);
+
+    // 源工作目录在摘要文件中的名字
+    public static final String ROOT_DIRECTORY = ".";
+
+    private String sourceRoot;
+    private String targetRoot;
+    private String sourceRootPath;      // 源工作目录的路径部分
+    private String targetRootPath;      // 目的工作目录的路径部分
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        this.sourceRoot = context.getConfiguration().get(Constants.SOURCE_WORK_DIR_KEY);
+        this.targetRoot = context.getConfiguration().get(Constants.TARGET_WORK_DIR_KEY);
+        this.sourceRootPath = Path.getPathWithoutSchemeAndAuthority(new Path(this.sourceRoot)).toString();
+        this.targetRootPath = Path.getPathWithoutSchemeAndAuthority(new Path(this.targetRoot)).toString();
+    }
+
+    @Override
+    protected void map(Writable key, Writable value, Context context) throws IOException, InterruptedException {
+        CheckReport checkReport;
+        if (value instanceof CheckRecord) {
+            checkReport = ((CheckRecord) value).toReport(key.toString(), this.sourceRoot, this.targetRoot);
+        } else {
+            // 文本格式的检查报告：key和检查报告以制表符分隔
+            String line = value.toString();
+            int separatorIndex = line.indexOf('\t');
+            checkReport = separatorIndex < 0 ? null
+                    : parse(line.substring(0, separatorIndex), line.substring(separatorIndex + 1));
+            if (null == checkReport) {
+                LOG.warn("Skip the unrecognized report line: {}.", line);
+                return;
+            }
+        }
+
+        // 只存在于目的端的文件按相对于目的工作目录的路径计入摘要
+        String relativePath = checkReport.getCheckResult() == CheckResult.TARGET_ONLY
+                ? getRelativePath(checkReport.getDestFilePath(), this.targetRootPath)
+                : getRelativePath(checkReport.getSourceFilePath(), this.sourceRootPath);
+        DirectoryDigest fileDigest = DirectoryDigest.of(relativePath, checkReport);
+        context.write(new Text(ROOT_DIRECTORY), fileDigest);
+        for (int index = relativePath.indexOf(Path.SEPARATOR_CHAR, 1); index > 0;
+             index = relativePath.indexOf(Path.SEPARATOR_CHAR, index + 1)) {
+            context.write(new Text(relativePath.substring(0, index)), fileDigest);
+        }
+    }
+
+    /**
+     * 文件相对于工作目录的路径，不包含scheme和authority，不在工作目录下的文件保留完整的路径。
+     */
+    private static String getRelativePath(String filePath, String rootPath) {
+        try {
+            return CheckRecord.relativize(Path.getPathWithoutSchemeAndAuthority(new Path(filePath)).toString(),
+                    rootPath);
+        } catch (IllegalArgumentException e) {
+            // 无法解析的路径按原样计入摘要
+            return filePath;
+        }
+    }
+
+    /**
+     * 按CheckReport#toString的格式从后往前解析文本格式的检查报告，路径中可能包含逗号，但校验算法和校验值中没有逗号。
+     * 源文件路径取自报告的key，不解析目的文件路径；TARGET_ONLY的报告的key是目的文件路径，源文件路径为None。抽样检查的报告最后一列为"抽样字节数/源文件长度"，其他报告中没有源文件长度。
+     */
+    static CheckReport parse(String keyPath, String reportText) {
+        int methodEnd = reportText.length();
+        int methodIndex = reportText.lastIndexOf(',');
+        long sourceFileLength = -1;
+        if (methodIndex >= 0 && reportText.startsWith(CheckMethod.SAMPLED.name() + ",",
+                reportText.lastIndexOf(',', methodIndex - 1) + 1)) {
+            String sampled = reportText.substring(methodIndex + 1);
+            try {
+                sourceFileLength = Long.parseLong(sampled.substring(sampled.indexOf('/') + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            methodEnd = methodIndex;
+            methodIndex = reportText.lastIndexOf(',', methodIndex - 1);
+        }
+        if (methodIndex < 0) {
+            return null;
+        }
+        CheckMethod checkMethod;
+        try {
+            checkMethod = CheckMethod.valueOf(reportText.substring(methodIndex + 1, methodEnd));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String head = reportText.substring(0, methodIndex);
+        for (CheckResult checkResult : CheckResult.values()) {
+            String suffix = "," + checkResult.name() + ",'" + checkResult.getDescription() + "'";
+            if (!head.endsWith(suffix)) {
+                continue;
+            }
+            // 结果之前的三列是校验算法、源端校验值和目的端校验值
+            String[] fields = new String[3];
+            int end = head.length() - suffix.length();
+            for (int i = fields.length - 1; i >= 0; i--) {
+                int start = head.lastIndexOf(',', end - 1);
+                if (start < 0) {
+                    return null;
+                }
+                fields[i] = head.substring(start + 1, end);
+                end = start;
+            }
+            if (checkResult == CheckResult.TARGET_ONLY) {
+                return new CheckReport(null, keyPath, fields[0], fields[1], fields[2], checkResult, checkMethod,
+                        sourceFileLength);
+            }
+            return new CheckReport(keyPath, null, fields[0], fields[1], fields[2], checkResult, checkMethod,
+                    sourceFileLength);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * 对同一个目录的文件摘要求和，输出每个目录的摘要，并统计两端摘要不同的目录数。
+ */
+public class DigestReducer extends Reducer<Text, DirectoryDigest, Text, DirectoryDigest> {
+    public static final String DIGEST_GROUP = "Digest";
+    public static final String DIRECTORIES_COUNTER = "DIRECTORIES";
+    public static final String DIFFERENT_DIRECTORIES_COUNTER = "DIFFERENT_DIRECTORIES";
+
+    /**
+     * 在map端预先求和，reduce端合并时也可能运行，因此不更新计数器。
+     */
+    public static class Combiner extends Reducer<Text, DirectoryDigest, Text, DirectoryDigest> {
+        @Override
+        protected void reduce(Text key, Iterable<DirectoryDigest> values, Context context)
+                throws IOException, InterruptedException {
+            context.write(key, sum(values));
+        }
+    }
+
+    @Override
+    protected void reduce(Text key, Iterable<DirectoryDigest> values, Context context)
+            throws IOException, InterruptedException {
+        DirectoryDigest directoryDigest = sum(values);
+        context.getCounter(DIGEST_GROUP, DIRECTORIES_COUNTER).increment(1);
+        if (!directoryDigest.isSame()) {
+            context.getCounter(DIGEST_GROUP, DIFFERENT_DIRECTORIES_COUNTER).increment(1);
+        }
+        context.write(key, directoryDigest);
+    }
+
+    private static DirectoryDigest sum(Iterable<DirectoryDigest> values) {
+        DirectoryDigest directoryDigest = new DirectoryDigest();
+        for (DirectoryDigest value : values) {
+            directoryDigest.add(value);
+        }
+        return directoryDigest;
+    }
+}
@@ -0,0 +1,33 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * 每次查询都直接调用文件系统的getFileStatus。
+ */
+public class DirectFileStatusLookup implements FileStatusLookup {
+    private final FileSystem fs;
+
+    public DirectFileStatusLookup(FileSystem fs) {
+        this.fs = fs;
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path path) throws IOException {
+        try {
+            return this.fs.getFileStatus(path);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public FileStatus getFullFileStatus(Path path, FileStatus fileStatus) {
+        return fileStatus;
+    }
+}
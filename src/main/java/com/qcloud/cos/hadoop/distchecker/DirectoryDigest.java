@@ -0,0 +1,135 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 一个目录下所有文件的摘要，源端和目的端各一个。
+ * 每个文件的摘要是"相对路径、校验算法、校验值"的MD5，目录的摘要是子树中所有文件摘要按两个64位整数分别求和，
+ * 与文件的顺序无关，因此父目录的摘要等于各个子目录和直接子文件的摘要之和，可以在combiner中逐级合并。
+ */
+public class DirectoryDigest implements Writable {
+    private long sourceHigh;
+    private long sourceLow;
+    private long targetHigh;
+    private long targetLow;
+    private long files;
+    private long bytes;             // 已知长度的源文件的总字节数
+    private long differentFiles;    // 检查结果不是SUCCESS的文件数
+
+    public DirectoryDigest() {
+    }
+
+    /**
+     * 由一条检查报告生成文件的摘要，relativePath为源文件相对于源工作目录的路径。
+     * 结果不是SUCCESS时两端的摘要一定不同；源文件或目的文件不存在时，对应一端不计入这个文件。
+     */
+    public static DirectoryDigest of(String relativePath, CheckReport checkReport) {
+        DirectoryDigest directoryDigest = new DirectoryDigest();
+        CheckResult checkResult = checkReport.getCheckResult();
+        String sourceToken = checkReport.getSourceChecksum();
+        String targetToken = checkReport.getTargetChecksum();
+        if (checkResult != CheckResult.SUCCESS && sourceToken.equals(targetToken)) {
+            // 例如长度不同、目的文件系统错误等没有校验值的情况
+            targetToken = checkResult.name();
+        }
+        if (checkResult != CheckResult.SOURCE_FILE_MISSING && checkResult != CheckResult.TARGET_ONLY) {
+            long[] digest = digest(relativePath, checkReport.getCheckSumAlgorithm(), sourceToken);
+            directoryDigest.sourceHigh = digest[0];
+            directoryDigest.sourceLow = digest[1];
+        }
+        if (checkResult != CheckResult.TARGET_FILE_MISSING) {
+            long[] digest = digest(relativePath, checkReport.getCheckSumAlgorithm(), targetToken);
+            directoryDigest.targetHigh = digest[0];
+            directoryDigest.targetLow = digest[1];
+        }
+        directoryDigest.files = 1;
+        directoryDigest.bytes = Math.max(0, checkReport.getSourceFileLength());
+        directoryDigest.differentFiles = checkResult == CheckResult.SUCCESS ? 0 : 1;
+        return directoryDigest;
+    }
+
+    private static long[] digest(String relativePath, String algorithm, String checksum) {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        md5.update(relativePath.getBytes(StandardCharsets.UTF_8));
+        md5.update((byte) 0);
+        md5.update(algorithm.getBytes(StandardCharsets.UTF_8));
+        md5.update((byte) 0);
+        ByteBuffer digest = ByteBuffer.wrap(md5.digest(checksum.getBytes(StandardCharsets.UTF_8)));
+        return new long[]{digest.getLong(), digest.getLong()};
+    }
+
+    public void add(DirectoryDigest other) {
+        this.sourceHigh += other.sourceHigh;
+        this.sourceLow += other.sourceLow;
+        this.targetHigh += other.targetHigh;
+        this.targetLow += other.targetLow;
+        this.files += other.files;
+        this.bytes += other.bytes;
+        this.differentFiles += other.differentFiles;
+    }
+
+    public boolean isSame() {
+        return this.sourceHigh == this.targetHigh && this.sourceLow == this.targetLow;
+    }
+
+    public String getSourceDigest() {
+        return String.format("%016x%016x", this.sourceHigh, this.sourceLow);
+    }
+
+    public String getTargetDigest() {
+        return String.format("%016x%016x", this.targetHigh, this.targetLow);
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getDifferentFiles() {
+        return differentFiles;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.sourceHigh);
+        out.writeLong(this.sourceLow);
+        out.writeLong(this.targetHigh);
+        out.writeLong(this.targetLow);
+        WritableUtils.writeVLong(out, this.files);
+        WritableUtils.writeVLong(out, this.bytes);
+        WritableUtils.writeVLong(out, this.differentFiles);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.sourceHigh = in.readLong();
+        this.sourceLow = in.readLong();
+        this.targetHigh = in.readLong();
+        this.targetLow = in.readLong();
+        this.files = WritableUtils.readVLong(in);
+        this.bytes = WritableUtils.readVLong(in);
+        this.differentFiles = WritableUtils.readVLong(in);
+    }
+
+    /**
+     * 文本格式的摘要文件中的一行：文件数、字节数、不一致的文件数、源端摘要、目的端摘要、SAME或DIFFERENT，以制表符分隔。
+     */
+    @Override
+    public String toString() {
+        return this.files + "\t" + this.bytes + "\t" + this.differentFiles + "\t" + this.getSourceDigest() + "\t"
+                + this.getTargetDigest() + "\t" + (this.isSame() ? "SAME" : "DIFFERENT");
+    }
+}
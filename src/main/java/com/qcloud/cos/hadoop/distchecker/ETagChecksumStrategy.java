@@ -0,0 +1,65 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.CosNFileStatus;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 简单上传的对象的ETag就是对象内容的MD5。COS的ETag来自CosNFileStatus，S3A开启fs.s3a.etag.checksum.enabled时
+ * 通过getFileChecksum返回ETag。分块上传的ETag带有"-分块数"的后缀，不是内容的MD5，不能用于比较。
+ * 使用服务端加密（SSE-KMS、SSE-C）的对象的ETag也不是MD5，这种情况需要从配置中去掉etag。
+ */
+public class ETagChecksumStrategy implements ChecksumStrategy {
+    public static final String ALGORITHM = "MD5";
+
+    private static final String ETAG_CHECKSUM_ALGORITHM = "etag";
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-fA-F]{32}");
+
+    @Override
+    public ChecksumValue getStoredChecksum(FileMetadata fileMetadata) {
+        String eTag = null;
+        if (fileMetadata.getFileStatus() instanceof CosNFileStatus) {
+            eTag = ((CosNFileStatus) fileMetadata.getFileStatus()).getETag();
+        } else {
+            FileChecksum fileChecksum = fileMetadata.getFileChecksum();
+            if (null != fileChecksum && ETAG_CHECKSUM_ALGORITHM.equals(fileChecksum.getAlgorithmName())) {
+                eTag = new String(fileChecksum.getBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        if (null == eTag) {
+            return null;
+        }
+        eTag = eTag.replace("\"", "");
+        if (!MD5_PATTERN.matcher(eTag).matches()) {
+            return null;
+        }
+        return new ChecksumValue(ALGORITHM, eTag.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public ChecksumDigest newDigest(ChecksumValue expected) {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The MD5 algorithm is not supported.", e);
+        }
+        return new ChecksumDigest() {
+            @Override
+            public void update(byte[] b, int off, int len) {
+                md5.update(b, off, len);
+            }
+
+            @Override
+            public ChecksumValue getValue() {
+                return new ChecksumValue(ALGORITHM, StringUtils.byteToHexString(md5.digest()));
+            }
+        };
+    }
+}
@@ -0,0 +1,485 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64Combiner;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CosNFileStatus;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 对单个源文件和其对应的目的文件进行检查，生成检查报告。
+ * CheckMapper以及其他需要复用检查逻辑的Mapper和Reducer都通过这个类完成检查。
+ */
+public class FileChecker implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(FileChecker.class);
+
+    /**
+     * 提供源文件的CRC64校验值，返回null表示无法确认源文件的校验值。
+     */
+    public interface SourceChecksumProvider {
+        Long getChecksum(Path sourceFilePath, FileStatus sourceFileStatus) throws IOException;
+    }
+
+    /**
+     * 记录检查过程中得到的源文件CRC64，sourceFilePath是源文件的完整路径。
+     */
+    public interface ChecksumRecorder {
+        void record(Path sourceFilePath, FileStatus sourceFileStatus, long crc64) throws IOException;
+    }
+
+    private final Configuration configuration;
+    private final FileSystem sourceFs;
+    private final Path sourceWorkingPath;
+    private final FileSystem targetFs;          // 目的文件系统
+    private final Path targetWorkingPath;       // 目的文件系统上的工作路径
+    private final PathMapper pathMapper;
+    private final CRC64Calculator crc64Calculator;
+    private final CheckMetrics checkMetrics = new CheckMetrics();
+    private final boolean metadataChecksumEnabled;
+    private final FileStatusLookup sourceFileStatusLookup;
+    private final FileStatusLookup targetFileStatusLookup;
+    private final ChecksumStrategyRegistry checksumStrategyRegistry;
+    private final ChecksumStrategy crc64Strategy;             // 输出校验值目录时计算CRC64
+    private final ChecksumCatalog checksumCatalog;          // 上一次检查的校验值目录，没有指定时为null
+    private final SamplingPlan samplingPlan;
+    private ChecksumRecorder checksumRecorder = null;
+
+    public FileChecker(Configuration configuration) throws IOException {
+        this.configuration = configuration;
+
+        String sourceWorkingDir = this.configuration.get(Constants.SOURCE_WORK_DIR_KEY);
+        if (null == sourceWorkingDir || sourceWorkingDir.isEmpty()) {
+            throw new IOException("The source work dir is not specified.");
+        }
+        this.sourceWorkingPath = new Path(sourceWorkingDir);
+        this.sourceFs = this.sourceWorkingPath.getFileSystem(configuration);
+        if (null == this.sourceFs) {
+            throw new IOException(String.format("Can not get the source file system from the path: %s.",
+                    this.sourceWorkingPath));
+        }
+        this.sourceFs.setWorkingDirectory(this.sourceWorkingPath);
+
+        String targetWorkingDir = this.configuration.get(Constants.TARGET_WORK_DIR_KEY);
+        if (null == targetWorkingDir || targetWorkingDir.isEmpty()) {
+            throw new IOException("The target work dir is not specified.");
+        }
+        this.targetWorkingPath = new Path(targetWorkingDir);
+        FileSystem targetFs = this.targetWorkingPath.getFileSystem(configuration);
+        if (null == targetFs) {
+            throw new IOException(String.format("Can not get the target file system for the path: %s.",
+                    this.targetWorkingPath));
+        }
+        // 对目的文件系统的请求限速并重试被限流的请求
+        this.targetFs = new ThrottledFileSystem(targetFs, new RequestThrottler(configuration, this.checkMetrics));
+        this.targetFs.setWorkingDirectory(this.targetWorkingPath);
+        this.pathMapper = new PathMapper(this.sourceWorkingPath, this.targetWorkingPath);
+
+        this.crc64Calculator = new CRC64Calculator(this.configuration, this.checkMetrics);
+        this.checksumStrategyRegistry = new ChecksumStrategyRegistry(this.configuration);
+        this.crc64Strategy = ReflectionUtils.newInstance(CRC64ChecksumStrategy.class, this.configuration);
+        this.samplingPlan = new SamplingPlan(this.configuration);
+        this.metadataChecksumEnabled = this.configuration.getBoolean(Constants.METADATA_CHECKSUM_ENABLED_KEY,
+                Constants.DEFAULT_METADATA_CHECKSUM_ENABLED);
+
+        if (this.configuration.getBoolean(Constants.LISTING_CACHE_ENABLED_KEY,
+                Constants.DEFAULT_LISTING_CACHE_ENABLED)) {
+            long maxEntries = this.configuration.getLong(Constants.LISTING_CACHE_MAX_ENTRIES_KEY,
+                    Constants.DEFAULT_LISTING_CACHE_MAX_ENTRIES);
+            this.sourceFileStatusLookup = new ListingFileStatusCache(this.sourceFs, maxEntries);
+            this.targetFileStatusLookup = new ListingFileStatusCache(this.targetFs, maxEntries);
+        } else {
+            this.sourceFileStatusLookup = new DirectFileStatusLookup(this.sourceFs);
+            this.targetFileStatusLookup = new DirectFileStatusLookup(this.targetFs);
+        }
+
+        String catalogInput = this.configuration.get(Constants.CATALOG_INPUT_KEY);
+        if (null != catalogInput && !catalogInput.isEmpty()) {
+            this.checksumCatalog = new ChecksumCatalog(new Path(catalogInput), this.configuration);
+        } else {
+            this.checksumCatalog = null;
+        }
+    }
+
+    public FileSystem getSourceFs() {
+        return sourceFs;
+    }
+
+    public CRC64Calculator getCrc64Calculator() {
+        return crc64Calculator;
+    }
+
+    public CheckMetrics getCheckMetrics() {
+        return checkMetrics;
+    }
+
+    public void setChecksumRecorder(ChecksumRecorder checksumRecorder) {
+        this.checksumRecorder = checksumRecorder;
+    }
+
+    /**
+     * 抽样检查时源文件是否被抽中，没有开启抽样时总是返回true。无法解析的路径也返回true，由检查输出UNCHECKED的报告。
+     */
+    public boolean isSelected(String sourceFilePathStr) {
+        if (!this.samplingPlan.isEnabled()) {
+            return true;
+        }
+        try {
+            return this.samplingPlan.isSelected(this.getRelativePath(new Path(sourceFilePathStr)));
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 源文件相对于源工作目录的路径，不包含scheme和authority，作为抽样的依据。
+     */
+    private String getRelativePath(Path sourceFilePath) {
+        String path = Path.getPathWithoutSchemeAndAuthority(this.sourceFs.makeQualified(sourceFilePath)).toString();
+        String root = Path.getPathWithoutSchemeAndAuthority(this.sourceFs.makeQualified(this.sourceWorkingPath))
+                .toString();
+        return CheckRecord.relativize(path, root);
+    }
+
+    public void checkInputPathStr(String inputPathStr) throws IOException {
+        if (null == inputPathStr) {
+            throw new IOException("The input path is null.");
+        }
+        if (inputPathStr.isEmpty()) {
+            throw new IOException("The input path is empty.");
+        }
+
+        // 检查input path和源工作路径是否属于同一个文件系统
+        Path inputPath = new Path(inputPathStr);
+        FileSystem fs = inputPath.getFileSystem(this.configuration);
+        if (fs.getScheme().compareToIgnoreCase(this.sourceFs.getScheme()) != 0) {
+            String exceptionMessage = String.format("The source path [%s] does not belong to the file system [%s].",
+                    inputPathStr, this.sourceFs.getScheme());
+            throw new IOException(exceptionMessage);
+        }
+
+        if (fs.getUri().getHost().compareToIgnoreCase(this.sourceFs.getUri().getHost()) != 0) {
+            String exceptionMessage = String.format("The source path [%s] does not belong to the file system [%s].",
+                    inputPathStr, this.sourceFs.getUri());
+            throw new IOException(exceptionMessage);
+        }
+    }
+
+    /**
+     * 检查源文件，需要时完整读取源文件来计算CRC64。
+     */
+    public CheckReport check(String sourceFilePathStr) throws IOException {
+        return this.check(sourceFilePathStr, this::computeChecksum, false);
+    }
+
+    /**
+     * 检查源文件，源文件的CRC64由checksumProvider提供，例如由各段的CRC64合并而来。
+     * 只按CRC64比较，不会读取源文件：目的文件没有CRC64时输出UNCHECKED或者TARGET_FILESYSTEM_ERROR。
+     */
+    public CheckReport check(String sourceFilePathStr, SourceChecksumProvider checksumProvider) throws IOException {
+        return this.check(sourceFilePathStr, checksumProvider, true);
+    }
+
+    private CheckReport check(String sourceFilePathStr, SourceChecksumProvider checksumProvider, boolean crc64Only)
+            throws IOException {
+        try {
+            // 这里不阻断下面的检查流程
+            this.checkInputPathStr(sourceFilePathStr);
+        } catch (IOException e) {
+            LOG.warn("Check input path [{}] failed.", sourceFilePathStr, e);
+            return new CheckReport(sourceFilePathStr, null, null, null, null, CheckResult.UNCHECKED);
+        }
+
+        Path sourceFilePath = new Path(sourceFilePathStr);
+
+        long startNanos = System.nanoTime();
+        FileStatus sourceFileStatus = this.sourceFileStatusLookup.getFileStatus(sourceFilePath);
+        this.checkMetrics.record(CheckPhase.SOURCE_STATUS, startNanos);
+        if (null == sourceFileStatus) {
+            return new CheckReport(sourceFilePath.toString(), null, null, null, null,
+                    CheckResult.SOURCE_FILE_MISSING);
+        }
+        return this.check(sourceFilePath, sourceFileStatus, false, checksumProvider, crc64Only);
+    }
+
+    /**
+     * 检查通过列目录得到的源文件，不再单独查询源文件的元数据，需要时完整读取源文件来计算CRC64。
+     */
+    public CheckReport check(FileStatus listedSourceFileStatus) throws IOException {
+        Path sourceFilePath = listedSourceFileStatus.getPath();
+        try {
+            return this.check(sourceFilePath, listedSourceFileStatus, true, this::computeChecksum, false);
+        } catch (FileNotFoundException e) {
+            // 源文件在列出以后被删除了
+            LOG.warn("The listed source file [{}] is missing.", sourceFilePath, e);
+            return new CheckReport(sourceFilePath.toString(), null, null, null, null,
+                    CheckResult.SOURCE_FILE_MISSING);
+        }
+    }
+
+    private Long computeChecksum(Path sourceFilePath, FileStatus sourceFileStatus) throws IOException {
+        long startNanos = System.nanoTime();
+        long crc64 = this.crc64Calculator.compute(this.sourceFs, sourceFilePath, sourceFileStatus.getLen());
+        this.checkMetrics.record(CheckPhase.CHECKSUM, startNanos);
+        this.checkMetrics.addChecksumBytes(sourceFileStatus.getLen());
+        return crc64;
+    }
+
+    private CheckReport check(Path sourceFilePath, FileStatus sourceFileStatus, boolean listed,
+                              SourceChecksumProvider checksumProvider, boolean crc64Only) throws IOException {
+        CheckReport checkReport = this.compare(sourceFilePath, sourceFileStatus, listed, checksumProvider,
+                crc64Only);
+        return checkReport.withSourceFileLength(sourceFileStatus.isDirectory() ? 0 : sourceFileStatus.getLen());
+    }
+
+    private CheckReport compare(Path sourceFilePath, FileStatus sourceFileStatus, boolean listed,
+                                SourceChecksumProvider checksumProvider, boolean crc64Only) throws IOException {
+        // 将源路径转换成目标文件系统上的路径
+        Path targetFilePath = this.pathMapper.getTargetPath(sourceFilePath);
+        LOG.debug("The target file path: {}.", targetFilePath);
+
+        // 首先判断目的路径是否存在
+        long startNanos = System.nanoTime();
+        FileStatus targetFileStatus = this.targetFileStatusLookup.getFileStatus(targetFilePath);
+        long targetStatusNanos = System.nanoTime() - startNanos;
+        if (null == targetFileStatus || !targetFileStatus.isFile() || !sourceFileStatus.isFile()
+                || sourceFileStatus.getLen() != targetFileStatus.getLen()) {
+            // 下面的检查不再需要目的文件完整的元数据
+            this.checkMetrics.recordNanos(CheckPhase.TARGET_STATUS, targetStatusNanos);
+        }
+        if (null == targetFileStatus) {
+            // 目的路径不存在
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                    CheckResult.TARGET_FILE_MISSING);
+        }
+
+        // 源文件存在且目的文件也存在
+        // 先判断长度是否相等
+        if (sourceFileStatus.getLen() != targetFileStatus.getLen()) {
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                    CheckResult.MISMATCH);
+        }
+
+        // 检查是否都是目录
+        if (sourceFileStatus.isDirectory() && targetFileStatus.isDirectory()) {
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                    CheckResult.SUCCESS);
+        } else if (sourceFileStatus.isDirectory() || targetFileStatus.isDirectory()) {
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                    CheckResult.MISMATCH);
+        }
+
+        // 列目录得到的元数据中可能没有校验值
+        if (listed) {
+            // 元数据快速校验需要用到源文件元数据中的CRC64
+            if (this.metadataChecksumEnabled
+                    && ListingFileStatusCache.isWithoutCrc64(this.sourceFs, sourceFileStatus)) {
+                FileStatus fullFileStatus = new DirectFileStatusLookup(this.sourceFs).getFileStatus(sourceFilePath);
+                sourceFileStatus = null == fullFileStatus ? sourceFileStatus : fullFileStatus;
+            }
+        } else {
+            sourceFileStatus = this.sourceFileStatusLookup.getFullFileStatus(sourceFilePath, sourceFileStatus);
+        }
+        startNanos = System.nanoTime();
+        targetFileStatus = this.targetFileStatusLookup.getFullFileStatus(targetFilePath, targetFileStatus);
+        this.checkMetrics.recordNanos(CheckPhase.TARGET_STATUS, targetStatusNanos + System.nanoTime() - startNanos);
+
+        FileMetadata sourceMetadata = new FileMetadata(this.sourceFs, sourceFilePath, sourceFileStatus);
+        FileMetadata targetMetadata = new FileMetadata(this.targetFs, targetFilePath, targetFileStatus);
+
+        // 优先比较两端元数据中的校验值，避免读取源文件
+        if (this.metadataChecksumEnabled) {
+            CheckReport checkReport = this.checkByMetadata(sourceMetadata, targetMetadata);
+            if (null != checkReport) {
+                return checkReport;
+            }
+        }
+
+        // 抽样检查时大文件只比较随机位置的若干段数据
+        long[] rangePositions = this.samplingPlan.getRangePositions(this.getRelativePath(sourceFilePath),
+                sourceFileStatus.getLen());
+        if (null != rangePositions && !crc64Only) {
+            return this.checkBySampledRanges(sourceFilePath, targetFilePath, rangePositions);
+        }
+
+        // 按顺序选择第一个目的文件已经保存、并且可以通过读取源文件计算的校验值
+        for (ChecksumStrategy checksumStrategy : this.checksumStrategyRegistry.getStrategies()) {
+            ChecksumValue targetFileChecksum = checksumStrategy.getStoredChecksum(targetMetadata);
+            if (null == targetFileChecksum) {
+                continue;
+            }
+            if (CRC64ChecksumStrategy.ALGORITHM.equals(targetFileChecksum.getAlgorithm())) {
+                return this.checkByCrc64(sourceFilePath, sourceFileStatus, targetFilePath, targetFileChecksum,
+                        checksumProvider);
+            }
+            if (crc64Only) {
+                // 其他算法需要完整读取源文件
+                continue;
+            }
+            ChecksumDigest digest = checksumStrategy.newDigest(targetFileChecksum);
+            if (null != digest) {
+                return this.checkByDigest(sourceFilePath, sourceFileStatus, targetFilePath, targetFileChecksum,
+                        digest);
+            }
+        }
+
+        if (!(targetFileStatus instanceof CosNFileStatus)) {
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                    CheckResult.TARGET_FILESYSTEM_ERROR);
+        }
+        return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), null, null, null,
+                CheckResult.UNCHECKED);
+    }
+
+    private CheckReport checkByCrc64(Path sourceFilePath, FileStatus sourceFileStatus, Path targetFilePath,
+                                     ChecksumValue targetFileChecksum, SourceChecksumProvider checksumProvider)
+            throws IOException {
+        LOG.debug("Comparing the crc64 between the source file [{}] and the target file [{}].",
+                sourceFilePath, targetFilePath);
+        // 使用CRC64来校验，源文件没有变化时直接复用校验值目录中的CRC64
+        Path qualifiedSourceFilePath = this.sourceFs.makeQualified(sourceFilePath);
+        Long sourceFileChecksum = this.getCatalogChecksum(qualifiedSourceFilePath, sourceFileStatus);
+        CheckMethod checkMethod = CheckMethod.CATALOG;
+        if (null == sourceFileChecksum) {
+            sourceFileChecksum = checksumProvider.getChecksum(sourceFilePath, sourceFileStatus);
+            checkMethod = CheckMethod.STREAMING;
+            LOG.debug("Finish compute the crc64.");
+        }
+        if (null == sourceFileChecksum) {
+            return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(),
+                    CRC64ChecksumStrategy.ALGORITHM, null, targetFileChecksum.getValue(), CheckResult.UNCONFIRM,
+                    checkMethod);
+        }
+        if (null != this.checksumRecorder) {
+            this.checksumRecorder.record(qualifiedSourceFilePath, sourceFileStatus, sourceFileChecksum);
+        }
+        return this.newReport(sourceFilePath, targetFilePath,
+                CRC64ChecksumStrategy.toChecksumValue(sourceFileChecksum), targetFileChecksum, checkMethod);
+    }
+
+    /**
+     * 读取源文件计算与目的文件相同算法的校验值。需要输出校验值目录时，在同一次读取中同时计算CRC64。
+     */
+    private CheckReport checkByDigest(Path sourceFilePath, FileStatus sourceFileStatus, Path targetFilePath,
+                                      ChecksumValue targetFileChecksum, ChecksumDigest digest) throws IOException {
+        LOG.debug("Comparing the {} between the source file [{}] and the target file [{}].",
+                targetFileChecksum.getAlgorithm(), sourceFilePath, targetFilePath);
+        List<ChecksumDigest> digests = new ArrayList<>(2);
+        digests.add(digest);
+        ChecksumDigest crc64Digest = null;
+        if (null != this.checksumRecorder) {
+            crc64Digest = this.crc64Strategy.newDigest(null);
+            digests.add(crc64Digest);
+        }
+
+        long startNanos = System.nanoTime();
+        this.crc64Calculator.computeDigests(this.sourceFs, sourceFilePath, sourceFileStatus.getLen(), digests);
+        this.checkMetrics.record(CheckPhase.CHECKSUM, startNanos);
+        this.checkMetrics.addChecksumBytes(sourceFileStatus.getLen());
+
+        if (null != crc64Digest) {
+            this.checksumRecorder.record(this.sourceFs.makeQualified(sourceFilePath), sourceFileStatus,
+                    Long.parseLong(crc64Digest.getValue().getValue()));
+        }
+        return this.newReport(sourceFilePath, targetFilePath, digest.getValue(), targetFileChecksum,
+                CheckMethod.STREAMING);
+    }
+
+    /**
+     * 分别读取源文件和目的文件中相同位置的各段数据，逐段比较CRC64。
+     * 检查报告中的校验值是各段数据拼接在一起的CRC64，不是整个文件的CRC64，因此不会记录到校验值目录中。
+     */
+    private CheckReport checkBySampledRanges(Path sourceFilePath, Path targetFilePath, long[] rangePositions)
+            throws IOException {
+        LOG.debug("Comparing the crc64 of {} sampled ranges between the source file [{}] and the target file [{}].",
+                rangePositions.length, sourceFilePath, targetFilePath);
+        long rangeSize = this.samplingPlan.getRangeSize();
+        long sampledBytes = rangeSize * rangePositions.length;
+
+        long startNanos = System.nanoTime();
+        long[] sourceCrcs = this.crc64Calculator.computeRanges(this.sourceFs, sourceFilePath, rangePositions,
+                rangeSize);
+        long[] targetCrcs = this.crc64Calculator.computeRanges(this.targetFs, targetFilePath, rangePositions,
+                rangeSize);
+        this.checkMetrics.record(CheckPhase.CHECKSUM, startNanos);
+        this.checkMetrics.addChecksumBytes(sampledBytes * 2);
+
+        long[] rangeLengths = new long[rangePositions.length];
+        Arrays.fill(rangeLengths, rangeSize);
+        return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(), CRC64ChecksumStrategy.ALGORITHM,
+                String.valueOf(CRC64Combiner.combine(sourceCrcs, rangeLengths)),
+                String.valueOf(CRC64Combiner.combine(targetCrcs, rangeLengths)),
+                Arrays.equals(sourceCrcs, targetCrcs) ? CheckResult.SUCCESS : CheckResult.MISMATCH,
+                CheckMethod.SAMPLED, -1, sampledBytes);
+    }
+
+    private CheckReport newReport(Path sourceFilePath, Path targetFilePath, ChecksumValue sourceFileChecksum,
+                                  ChecksumValue targetFileChecksum, CheckMethod checkMethod) {
+        return new CheckReport(sourceFilePath.toString(), targetFilePath.toString(),
+                targetFileChecksum.getAlgorithm(), sourceFileChecksum.getValue(), targetFileChecksum.getValue(),
+                sourceFileChecksum.equals(targetFileChecksum) ? CheckResult.SUCCESS : CheckResult.MISMATCH,
+                checkMethod);
+    }
+
+    /**
+     * 源文件的长度和修改时间都与校验值目录中的记录一致时，返回记录的CRC64，否则返回null。
+     */
+    private Long getCatalogChecksum(Path qualifiedSourceFilePath, FileStatus sourceFileStatus) throws IOException {
+        if (null == this.checksumCatalog || sourceFileStatus.getModificationTime() <= 0) {
+            // 不支持修改时间的文件系统无法判断源文件是否发生过变化
+            return null;
+        }
+        CatalogEntry catalogEntry = this.checksumCatalog.get(qualifiedSourceFilePath);
+        if (null == catalogEntry
+                || catalogEntry.getLength() != sourceFileStatus.getLen()
+                || catalogEntry.getModificationTime() != sourceFileStatus.getModificationTime()) {
+            return null;
+        }
+        LOG.debug("Reuse the crc64 of the source file [{}] in the checksum catalog.", qualifiedSourceFilePath);
+        return catalogEntry.getCrc64();
+    }
+
+    /**
+     * 使用两端文件系统元数据中已有的校验值进行比较，按配置的顺序选择第一种两端都有的算法，无法比较时返回null。
+     * 例如，两端都是CosN文件时比较CRC64；HDFS开启了COMPOSITE_CRC，而CosN开启了fs.cosn.crc32c.checksum.enabled时，
+     * 两端的getFileChecksum都会返回COMPOSITE-CRC32C。
+     */
+    private CheckReport checkByMetadata(FileMetadata sourceMetadata, FileMetadata targetMetadata)
+            throws IOException {
+        for (ChecksumStrategy checksumStrategy : this.checksumStrategyRegistry.getStrategies()) {
+            ChecksumValue targetFileChecksum = checksumStrategy.getStoredChecksum(targetMetadata);
+            if (null == targetFileChecksum) {
+                continue;
+            }
+            ChecksumValue sourceFileChecksum = checksumStrategy.getStoredChecksum(sourceMetadata);
+            if (null == sourceFileChecksum || !sourceFileChecksum.isComparableWith(targetFileChecksum)) {
+                LOG.debug("The checksum of the source file [{}]: {} is not comparable with the target file [{}]: {}.",
+                        sourceMetadata.getPath(), sourceFileChecksum, targetMetadata.getPath(), targetFileChecksum);
+                continue;
+            }
+            LOG.debug("Comparing the {} between the source file [{}] and the target file [{}] by metadata.",
+                    targetFileChecksum.getAlgorithm(), sourceMetadata.getPath(), targetMetadata.getPath());
+            return this.newReport(sourceMetadata.getPath(), targetMetadata.getPath(), sourceFileChecksum,
+                    targetFileChecksum, CheckMethod.METADATA);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.crc64Calculator.close();
+        if (null != this.checksumCatalog) {
+            this.checksumCatalog.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * 文件系统getFileChecksum返回的任意算法的校验和，只有两端返回的算法相同时才能比较，例如块大小相同的两个HDFS集群。
+ * 这些算法通常与文件系统的存储方式有关，无法通过读取源文件计算。
+ */
+public class FileChecksumStrategy implements ChecksumStrategy {
+
+    @Override
+    public ChecksumValue getStoredChecksum(FileMetadata fileMetadata) {
+        FileChecksum fileChecksum = fileMetadata.getFileChecksum();
+        if (null == fileChecksum) {
+            return null;
+        }
+        return new ChecksumValue(fileChecksum.getAlgorithmName(), StringUtils.byteToHexString(fileChecksum.getBytes()));
+    }
+
+    @Override
+    public ChecksumDigest newDigest(ChecksumValue expected) {
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 由源文件列表中若干行组成的分片，由BalancedFileListInputFormat按照需要读取的字节数均衡地分配，
+ * 或者由LocalityAwareFileListInputFormat按照数据块所在的节点分配。
+ * 与FileSplit一样，hosts只在作业提交时用于调度，不会序列化到map任务中。
+ */
+public class FileListSplit extends InputSplit implements Writable {
+    private List<String> paths;
+    private long cost;              // 分片中所有文件的读取量加上请求开销
+    private String[] hosts;
+
+    public FileListSplit() {
+        this.paths = new ArrayList<>();
+        this.hosts = new String[0];
+    }
+
+    public FileListSplit(List<String> paths, long cost) {
+        this(paths, cost, new String[0]);
+    }
+
+    public FileListSplit(List<String> paths, long cost, String[] hosts) {
+        this.paths = paths;
+        this.cost = cost;
+        this.hosts = hosts;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * 作业提交时会按分片的长度从大到小调度map任务，这里返回分片的开销。
+     */
+    @Override
+    public long getLength() {
+        return this.cost;
+    }
+
+    @Override
+    public String[] getLocations() {
+        return this.hosts;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.cost);
+        WritableUtils.writeVInt(out, this.paths.size());
+        for (String path : this.paths) {
+            Text.writeString(out, path);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.cost = in.readLong();
+        int size = WritableUtils.readVInt(in);
+        this.paths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.paths.add(Text.readString(in));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileListSplit{" +
+                "files=" + paths.size() +
+                ", cost=" + cost +
+                ", hosts=" + String.join(" ", hosts) +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 检查一对文件时某一端文件的元数据。getFileChecksum需要额外的请求，第一次用到时才获取，
+ * 之后各个{@link ChecksumStrategy}共用同一个结果。
+ */
+public class FileMetadata {
+    private static final Logger LOG = LoggerFactory.getLogger(FileMetadata.class);
+
+    private final FileSystem fs;
+    private final Path path;
+    private final FileStatus fileStatus;
+    private FileChecksum fileChecksum = null;
+    private boolean fileChecksumLoaded = false;
+
+    public FileMetadata(FileSystem fs, Path path, FileStatus fileStatus) {
+        this.fs = fs;
+        this.path = path;
+        this.fileStatus = fileStatus;
+    }
+
+    public FileSystem getFileSystem() {
+        return fs;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public FileStatus getFileStatus() {
+        return fileStatus;
+    }
+
+    /**
+     * 返回文件系统提供的文件校验和，文件系统不支持或者获取失败时返回null。
+     */
+    public FileChecksum getFileChecksum() {
+        if (!this.fileChecksumLoaded) {
+            this.fileChecksumLoaded = true;
+            try {
+                this.fileChecksum = this.fs.getFileChecksum(this.path);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.debug("Get the file checksum of the path [{}] failed.", this.path, e);
+            }
+        }
+        return this.fileChecksum;
+    }
+}
@@ -0,0 +1,78 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 源文件中待检查的一段数据，length小于0时表示检查整个文件。
+ */
+public class FileRange implements Writable {
+    private String path;
+    private long offset;
+    private long length;
+    private long fileLength;
+
+    public FileRange() {
+    }
+
+    public FileRange(String path, long offset, long length, long fileLength) {
+        this.path = path;
+        this.offset = offset;
+        this.length = length;
+        this.fileLength = fileLength;
+    }
+
+    public static FileRange wholeFile(String path) {
+        return new FileRange(path, 0, -1, -1);
+    }
+
+    public boolean isWholeFile() {
+        return this.length < 0;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        Text.writeString(out, this.path);
+        out.writeLong(this.offset);
+        out.writeLong(this.length);
+        out.writeLong(this.fileLength);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.path = Text.readString(in);
+        this.offset = in.readLong();
+        this.length = in.readLong();
+        this.fileLength = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "FileRange{" +
+                "path='" + path + '\'' +
+                ", offset=" + offset +
+                ", length=" + length +
+                ", fileLength=" + fileLength +
+                '}';
+    }
+}
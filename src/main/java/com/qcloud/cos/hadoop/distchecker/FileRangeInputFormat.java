@@ -0,0 +1,239 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+import org.apache.hadoop.util.LineReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读取源文件列表的InputFormat。
+ * 长度超过hadoop.cos.dist.checker.large.file.threshold的文件会被展开成多个(path, offset, length)分片，
+ * 使得同一个文件的不同部分可以在不同的节点上计算CRC64；其余的文件仍然按照源文件列表的行来切分。
+ */
+public class FileRangeInputFormat extends FileInputFormat<Text, FileRange> {
+    private static final Logger LOG = LoggerFactory.getLogger(FileRangeInputFormat.class);
+
+    private static final class LargeFile {
+        private final Path listFile;
+        private final long lineOffset;
+        private final String path;
+        private final long fileLength;
+
+        private LargeFile(Path listFile, long lineOffset, String path, long fileLength) {
+            this.listFile = listFile;
+            this.lineOffset = lineOffset;
+            this.path = path;
+            this.fileLength = fileLength;
+        }
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        Configuration configuration = job.getConfiguration();
+        long threshold = configuration.getLong(Constants.LARGE_FILE_THRESHOLD_KEY,
+                Constants.DEFAULT_LARGE_FILE_THRESHOLD);
+        long splitSize = configuration.getLong(Constants.LARGE_FILE_SPLIT_SIZE_KEY,
+                Constants.DEFAULT_LARGE_FILE_SPLIT_SIZE);
+        if (splitSize <= 0) {
+            throw new IOException(String.format("The %s must be positive, but got %d.",
+                    Constants.LARGE_FILE_SPLIT_SIZE_KEY, splitSize));
+        }
+
+        List<InputSplit> listSplits = super.getSplits(job);
+        List<LargeFile> largeFiles = new ArrayList<>();
+        if (threshold > 0) {
+            largeFiles = findLargeFiles(this.listStatus(job), threshold, configuration);
+        }
+
+        List<InputSplit> splits = new ArrayList<>(listSplits.size() + largeFiles.size());
+        for (InputSplit inputSplit : listSplits) {
+            FileSplit listSplit = (FileSplit) inputSplit;
+            List<Long> skippedLineOffsets = new ArrayList<>();
+            for (LargeFile largeFile : largeFiles) {
+                // 行的归属由LineRecordReader决定，落在分片边界上的行在相邻的两个分片中都跳过
+                if (largeFile.listFile.equals(listSplit.getPath())
+                        && largeFile.lineOffset >= listSplit.getStart()
+                        && largeFile.lineOffset <= listSplit.getStart() + listSplit.getLength()) {
+                    skippedLineOffsets.add(largeFile.lineOffset);
+                }
+            }
+            long[] offsets = new long[skippedLineOffsets.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = skippedLineOffsets.get(i);
+            }
+            splits.add(new CheckListSplit(listSplit.getPath(), listSplit.getStart(), listSplit.getLength(),
+                    listSplit.getLocations(), offsets));
+        }
+
+        for (LargeFile largeFile : largeFiles) {
+            for (long offset = 0; offset < largeFile.fileLength; offset += splitSize) {
+                long length = Math.min(splitSize, largeFile.fileLength - offset);
+                splits.add(new FileRangeSplit(new FileRange(largeFile.path, offset, length, largeFile.fileLength)));
+            }
+        }
+
+        LOG.info("Found {} large files, total number of splits: {}.", largeFiles.size(), splits.size());
+        return splits;
+    }
+
+    /**
+     * 扫描源文件列表，找出长度超过阈值的文件。
+     * 通过{@link GroupedFileStatusLookup}按父目录查询文件的长度，而不是对每一行都发起一次getFileStatus。
+     * 路径不合法或者查询失败的行不展开，由map任务输出对应的检查报告。
+     */
+    private static List<LargeFile> findLargeFiles(List<FileStatus> listFileStatuses, long threshold,
+                                                  Configuration configuration) throws IOException {
+        List<Path> listFiles = new ArrayList<>();
+        List<Long> lineOffsets = new ArrayList<>();
+        List<String> pathStrs = new ArrayList<>();
+        for (FileStatus listFileStatus : listFileStatuses) {
+            Path listFile = listFileStatus.getPath();
+            FileSystem listFs = listFile.getFileSystem(configuration);
+            try (FSDataInputStream inputStream = listFs.open(listFile)) {
+                LineReader lineReader = new LineReader(inputStream, configuration);
+                Text line = new Text();
+                long lineOffset = 0;
+                int bytesRead;
+                while ((bytesRead = lineReader.readLine(line)) > 0) {
+                    long currentLineOffset = lineOffset;
+                    lineOffset += bytesRead;
+
+                    String pathStr = line.toString().trim();
+                    if (!pathStr.isEmpty()) {
+                        listFiles.add(listFile);
+                        lineOffsets.add(currentLineOffset);
+                        pathStrs.add(pathStr);
+                    }
+                }
+            }
+        }
+
+        GroupedFileStatusLookup lookup = GroupedFileStatusLookup.lookup(pathStrs, configuration, false);
+        List<LargeFile> largeFiles = new ArrayList<>();
+        for (int i = 0; i < pathStrs.size(); i++) {
+            FileStatus fileStatus = lookup.getFileStatus(i);
+            if (null != fileStatus && fileStatus.getLen() > threshold) {
+                largeFiles.add(new LargeFile(listFiles.get(i), lineOffsets.get(i), pathStrs.get(i),
+                        fileStatus.getLen()));
+            }
+        }
+        return largeFiles;
+    }
+
+    @Override
+    public RecordReader<Text, FileRange> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        if (split instanceof FileRangeSplit) {
+            return new FileRangeRecordReader();
+        }
+        return new CheckListRecordReader();
+    }
+
+    /**
+     * 读取大文件分片，只产生一条记录。
+     */
+    private static final class FileRangeRecordReader extends RecordReader<Text, FileRange> {
+        private FileRange fileRange;
+        private boolean processed = false;
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) {
+            this.fileRange = ((FileRangeSplit) split).getFileRange();
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            if (this.processed) {
+                return false;
+            }
+            this.processed = true;
+            return true;
+        }
+
+        @Override
+        public Text getCurrentKey() {
+            return new Text(this.fileRange.getPath());
+        }
+
+        @Override
+        public FileRange getCurrentValue() {
+            return this.fileRange;
+        }
+
+        @Override
+        public float getProgress() {
+            return this.processed ? 1.0f : 0.0f;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 按行读取源文件列表，跳过已经被切分成FileRangeSplit的大文件。
+     */
+    private static final class CheckListRecordReader extends RecordReader<Text, FileRange> {
+        private final LineRecordReader lineRecordReader = new LineRecordReader();
+        private CheckListSplit checkListSplit;
+        private Text key;
+        private FileRange value;
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+            this.checkListSplit = (CheckListSplit) split;
+            this.lineRecordReader.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            while (this.lineRecordReader.nextKeyValue()) {
+                LongWritable lineOffset = this.lineRecordReader.getCurrentKey();
+                if (this.checkListSplit.isSkipped(lineOffset.get())) {
+                    continue;
+                }
+                String pathStr = this.lineRecordReader.getCurrentValue().toString().trim();
+                this.key = new Text(pathStr);
+                this.value = FileRange.wholeFile(pathStr);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Text getCurrentKey() {
+            return this.key;
+        }
+
+        @Override
+        public FileRange getCurrentValue() {
+            return this.value;
+        }
+
+        @Override
+        public float getProgress() throws IOException {
+            return this.lineRecordReader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.lineRecordReader.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 大文件中的一段数据组成的分片，由一个map任务单独计算这一段的CRC64。
+ */
+public class FileRangeSplit extends InputSplit implements Writable {
+    private FileRange fileRange;
+
+    public FileRangeSplit() {
+        this.fileRange = new FileRange();
+    }
+
+    public FileRangeSplit(FileRange fileRange) {
+        this.fileRange = fileRange;
+    }
+
+    public FileRange getFileRange() {
+        return fileRange;
+    }
+
+    @Override
+    public long getLength() {
+        return this.fileRange.getLength();
+    }
+
+    @Override
+    public String[] getLocations() {
+        return new String[0];
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        this.fileRange.write(out);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.fileRange.readFields(in);
+    }
+
+    @Override
+    public String toString() {
+        return this.fileRange.toString();
+    }
+}
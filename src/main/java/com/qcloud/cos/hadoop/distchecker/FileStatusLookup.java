@@ -0,0 +1,22 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+
+/**
+ * 查询文件的元数据。
+ */
+public interface FileStatusLookup {
+    /**
+     * 返回路径的FileStatus，路径不存在时返回null。
+     */
+    FileStatus getFileStatus(Path path) throws IOException;
+
+    /**
+     * 返回包含完整元数据（例如CosN文件的CRC64）的FileStatus，fileStatus为getFileStatus的返回值。
+     * 通过列目录得到的FileStatus可能不包含这些元数据，此时需要再查询一次。
+     */
+    FileStatus getFullFileStatus(Path path, FileStatus fileStatus) throws IOException;
+}
@@ -0,0 +1,172 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 作业提交时查询源文件列表中的文件的长度，需要时同时取得数据块位置。
+ * 文件按父目录分组，源文件列表不需要按目录排序，每个父目录最多分页列出一次，列到所有需要的文件后提前结束；
+ * 列表中只有少数几个文件的父目录，以及子项太多的父目录中没有列到的文件，逐个查询。
+ * 路径不合法或者查询失败的文件没有元数据，由map任务输出对应的检查报告。
+ */
+final class GroupedFileStatusLookup {
+    private static final Logger LOG = LoggerFactory.getLogger(GroupedFileStatusLookup.class);
+
+    private final Configuration configuration;
+    private final boolean withBlockLocations;
+    private final int listingMinFiles;
+    private final long listingMaxEntries;
+
+    private final FileStatus[] fileStatuses;            // 查询不到的文件和目录为null
+    private final BlockLocation[][] blockLocations;     // 不需要数据块位置时都为null
+
+    private GroupedFileStatusLookup(int files, Configuration configuration, boolean withBlockLocations) {
+        this.configuration = configuration;
+        this.withBlockLocations = withBlockLocations;
+        this.listingMinFiles = configuration.getInt(Constants.SPLIT_LISTING_MIN_FILES_KEY,
+                Constants.DEFAULT_SPLIT_LISTING_MIN_FILES);
+        this.listingMaxEntries = configuration.getLong(Constants.SPLIT_LISTING_MAX_ENTRIES_KEY,
+                Constants.DEFAULT_SPLIT_LISTING_MAX_ENTRIES);
+        this.fileStatuses = new FileStatus[files];
+        this.blockLocations = new BlockLocation[files][];
+    }
+
+    /**
+     * 查询pathStrs中的每个文件，结果按pathStrs中的下标取出。
+     */
+    static GroupedFileStatusLookup lookup(List<String> pathStrs, Configuration configuration,
+                                          boolean withBlockLocations) {
+        GroupedFileStatusLookup lookup = new GroupedFileStatusLookup(pathStrs.size(), configuration,
+                withBlockLocations);
+        lookup.lookup(pathStrs);
+        return lookup;
+    }
+
+    /**
+     * 文件的元数据，查询不到或者不是文件时返回null。
+     */
+    FileStatus getFileStatus(int index) {
+        return this.fileStatuses[index];
+    }
+
+    /**
+     * 文件的数据块位置，查询不到或者没有要求数据块位置时返回null。
+     */
+    BlockLocation[] getBlockLocations(int index) {
+        return this.blockLocations[index];
+    }
+
+    private void lookup(List<String> pathStrs) {
+        Path[] paths = new Path[pathStrs.size()];
+        Map<Path, List<Integer>> parentIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            try {
+                paths[i] = new Path(pathStrs.get(i));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("The source file path [{}] is invalid.", pathStrs.get(i));
+                continue;
+            }
+            Path parent = paths[i].getParent();
+            if (null != parent) {
+                parentIndexes.computeIfAbsent(parent, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        long listedParents = 0;
+        long lookedUpFiles = 0;
+        for (Map.Entry<Path, List<Integer>> parentEntry : parentIndexes.entrySet()) {
+            List<Integer> remainingIndexes = parentEntry.getValue();
+            if (remainingIndexes.size() >= this.listingMinFiles) {
+                remainingIndexes = this.listParent(parentEntry.getKey(), remainingIndexes, paths);
+                listedParents++;
+            }
+            for (int index : remainingIndexes) {
+                this.lookupFile(paths[index], index);
+                lookedUpFiles++;
+            }
+        }
+        LOG.info("Looked up {} source files by listing {} parent directories and {} files one by one.",
+                paths.length, listedParents, lookedUpFiles);
+    }
+
+    /**
+     * 列出父目录，取得indexes中的文件的元数据，列到所有需要的文件后提前结束。
+     * 子项超过listingMaxEntries时不再继续列出，返回还没有列到的文件，由调用方逐个查询。
+     */
+    private List<Integer> listParent(Path parent, List<Integer> indexes, Path[] paths) {
+        // 源文件列表中可能有重复的行
+        Map<String, List<Integer>> wanted = new HashMap<>();
+        for (int index : indexes) {
+            wanted.computeIfAbsent(paths[index].getName(), key -> new ArrayList<>()).add(index);
+        }
+        try {
+            FileSystem fs = parent.getFileSystem(this.configuration);
+            RemoteIterator<? extends FileStatus> iterator = this.withBlockLocations
+                    ? fs.listLocatedStatus(parent) : fs.listStatusIterator(parent);
+            long listedEntries = 0;
+            while (!wanted.isEmpty() && iterator.hasNext()) {
+                if (++listedEntries > this.listingMaxEntries) {
+                    LOG.info("The parent directory [{}] has more than {} entries, look up the remaining {} files "
+                            + "one by one.", parent, this.listingMaxEntries, wanted.size());
+                    List<Integer> remainingIndexes = new ArrayList<>();
+                    for (List<Integer> remaining : wanted.values()) {
+                        remainingIndexes.addAll(remaining);
+                    }
+                    return remainingIndexes;
+                }
+                FileStatus child = iterator.next();
+                List<Integer> childIndexes = wanted.remove(child.getPath().getName());
+                if (null != childIndexes && child.isFile()) {
+                    for (int index : childIndexes) {
+                        this.fileStatuses[index] = child;
+                        if (this.withBlockLocations) {
+                            this.blockLocations[index] = ((LocatedFileStatus) child).getBlockLocations();
+                        }
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            LOG.warn("The parent directory [{}] of {} source files does not exist.", parent, indexes.size());
+        } catch (IOException | IllegalArgumentException e) {
+            // 由map任务输出对应的检查报告
+            LOG.warn("List the parent directory [{}] of {} source files failed.", parent, indexes.size(), e);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * 逐个查询文件的元数据和数据块位置。
+     */
+    private void lookupFile(Path path, int index) {
+        try {
+            FileSystem fs = path.getFileSystem(this.configuration);
+            FileStatus fileStatus = fs.getFileStatus(path);
+            if (fileStatus.isFile()) {
+                this.fileStatuses[index] = fileStatus;
+                if (this.withBlockLocations) {
+                    this.blockLocations[index] = fs.getFileBlockLocations(fileStatus, 0, fileStatus.getLen());
+                }
+            }
+        } catch (FileNotFoundException e) {
+            LOG.warn("The source file [{}] does not exist.", path);
+        } catch (IOException | IllegalArgumentException e) {
+            // 由map任务输出对应的检查报告
+            LOG.warn("Look up the source file [{}] failed.", path, e);
+        }
+    }
+}
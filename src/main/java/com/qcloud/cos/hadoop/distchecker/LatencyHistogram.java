@@ -0,0 +1,136 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 以微秒为单位记录耗时分布的直方图，可以在多个线程中同时记录，多个任务的直方图可以直接相加。
+ * 每个2的幂区间再等分成8个桶，分位数的相对误差不超过12.5%。
+ */
+public class LatencyHistogram implements Writable {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        this.counts.incrementAndGet(bucketIndex(micros));
+        this.totalCount.incrementAndGet();
+        this.totalMicros.addAndGet(micros);
+        this.maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                this.counts.addAndGet(i, count);
+            }
+        }
+        this.totalCount.addAndGet(other.totalCount.get());
+        this.totalMicros.addAndGet(other.totalMicros.get());
+        this.maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * 返回分位数所在桶的上界，percentile取值为0到100。
+     */
+    public long getPercentileMicros(double percentile) {
+        long totalCount = this.totalCount.get();
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(totalCount * percentile / 100.0);
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.counts.get(i);
+            if (count >= Math.max(threshold, 1)) {
+                return Math.min(bucketUpperBound(i), this.maxMicros.get());
+            }
+        }
+        return this.maxMicros.get();
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowerBound = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 只写出非空的桶。
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVLong(out, this.totalCount.get());
+        WritableUtils.writeVLong(out, this.totalMicros.get());
+        WritableUtils.writeVLong(out, this.maxMicros.get());
+        int nonEmptyBuckets = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (this.counts.get(i) > 0) {
+                nonEmptyBuckets++;
+            }
+        }
+        WritableUtils.writeVInt(out, nonEmptyBuckets);
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = this.counts.get(i);
+            if (count > 0) {
+                WritableUtils.writeVInt(out, i);
+                WritableUtils.writeVLong(out, count);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.totalCount.set(WritableUtils.readVLong(in));
+        this.totalMicros.set(WritableUtils.readVLong(in));
+        this.maxMicros.set(WritableUtils.readVLong(in));
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        int nonEmptyBuckets = WritableUtils.readVInt(in);
+        for (int i = 0; i < nonEmptyBuckets; i++) {
+            int index = WritableUtils.readVInt(in);
+            this.counts.set(index, WritableUtils.readVLong(in));
+        }
+    }
+}
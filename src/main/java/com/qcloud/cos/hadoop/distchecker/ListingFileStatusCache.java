@@ -0,0 +1,190 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.CosNFileStatus;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 按父目录缓存文件元数据。
+ * 第一次查询某个目录下的文件时，对父目录做一次分页的列目录操作，缓存所有子文件的FileStatus，
+ * 之后同一个目录下的文件都直接从缓存中查询，从而将每个文件的exists/getFileStatus请求合并成每个目录的list请求。
+ * 缓存按目录做LRU淘汰，缓存的FileStatus总数不超过maxEntries；子文件数超过maxEntries的目录不缓存，退化为逐个查询，
+ * 并记住这些目录，之后不再重复列出。多个线程同时查询同一个还没有缓存的目录时，只有一个线程列目录，其他线程等待它的结果。
+ */
+public class ListingFileStatusCache implements FileStatusLookup {
+    private static final Logger LOG = LoggerFactory.getLogger(ListingFileStatusCache.class);
+
+    // 最多记住的子文件数超过maxEntries的目录个数
+    private static final int MAX_OVERSIZED_DIRECTORIES = 1024;
+
+    private final FileSystem fs;
+    private final long maxEntries;
+    private final DirectFileStatusLookup directLookup;
+
+    private final LinkedHashMap<Path, Map<String, FileStatus>> directories =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedEntries = 0;
+    // 正在被某个线程列出的目录，结果为null表示目录太大
+    private final Map<Path, CompletableFuture<Map<String, FileStatus>>> pendingListings = new HashMap<>();
+    private final Map<Path, Boolean> oversizedDirectories = new LinkedHashMap<Path, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Boolean> eldest) {
+            return this.size() > MAX_OVERSIZED_DIRECTORIES;
+        }
+    };
+
+    public ListingFileStatusCache(FileSystem fs, long maxEntries) {
+        this.fs = fs;
+        this.maxEntries = maxEntries;
+        this.directLookup = new DirectFileStatusLookup(fs);
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path path) throws IOException {
+        Path qualifiedPath = this.fs.makeQualified(path);
+        Path parent = qualifiedPath.getParent();
+        if (null == parent) {
+            return this.directLookup.getFileStatus(qualifiedPath);
+        }
+
+        Map<String, FileStatus> children;
+        CompletableFuture<Map<String, FileStatus>> pendingListing = null;
+        boolean listing = false;
+        synchronized (this) {
+            children = this.directories.get(parent);
+            if (null == children) {
+                if (null != this.oversizedDirectories.get(parent)) {
+                    return this.directLookup.getFileStatus(qualifiedPath);
+                }
+                pendingListing = this.pendingListings.get(parent);
+                if (null == pendingListing) {
+                    pendingListing = new CompletableFuture<>();
+                    this.pendingListings.put(parent, pendingListing);
+                    listing = true;
+                }
+            }
+        }
+        if (null == children) {
+            children = listing ? this.listAndCache(parent, pendingListing) : awaitListing(parent, pendingListing);
+            if (null == children) {
+                // 目录太大，不缓存，之后直接逐个查询
+                return this.directLookup.getFileStatus(qualifiedPath);
+            }
+        }
+        return children.get(qualifiedPath.getName());
+    }
+
+    @Override
+    public FileStatus getFullFileStatus(Path path, FileStatus fileStatus) throws IOException {
+        // COS的列目录结果中没有CRC64，需要再发起一次HEAD请求
+        if (isWithoutCrc64(this.fs, fileStatus)) {
+            FileStatus fullFileStatus = this.directLookup.getFileStatus(path);
+            return null == fullFileStatus ? fileStatus : fullFileStatus;
+        }
+        return fileStatus;
+    }
+
+    /**
+     * 判断通过列目录得到的FileStatus是否缺少CRC64。
+     */
+    static boolean isWithoutCrc64(FileSystem fs, FileStatus fileStatus) {
+        return fileStatus instanceof CosNFileStatus
+                ? null == ((CosNFileStatus) fileStatus).getCrc64ecma()
+                : "cosn".equalsIgnoreCase(fs.getScheme());
+    }
+
+    /**
+     * 列出目录并缓存结果，同时通知等待同一个目录的其他线程。
+     */
+    private Map<String, FileStatus> listAndCache(Path directory,
+                                                 CompletableFuture<Map<String, FileStatus>> pendingListing)
+            throws IOException {
+        Map<String, FileStatus> children;
+        try {
+            children = this.listDirectory(directory);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                this.pendingListings.remove(directory);
+            }
+            pendingListing.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            if (null == children) {
+                this.oversizedDirectories.put(directory, Boolean.TRUE);
+            } else {
+                this.cache(directory, children);
+            }
+            this.pendingListings.remove(directory);
+        }
+        pendingListing.complete(children);
+        return children;
+    }
+
+    private static Map<String, FileStatus> awaitListing(Path directory,
+                                                        CompletableFuture<Map<String, FileStatus>> pendingListing)
+            throws IOException {
+        try {
+            return pendingListing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Waiting for the listing of the directory [%s] is "
+                    + "interrupted.", directory));
+        } catch (ExecutionException e) {
+            throw new IOException(String.format("List the directory [%s] failed.", directory), e.getCause());
+        }
+    }
+
+    private Map<String, FileStatus> listDirectory(Path directory) throws IOException {
+        Map<String, FileStatus> children = new HashMap<>();
+        try {
+            RemoteIterator<FileStatus> iterator = this.fs.listStatusIterator(directory);
+            while (iterator.hasNext()) {
+                FileStatus child = iterator.next();
+                children.put(child.getPath().getName(), child);
+                if (children.size() > this.maxEntries) {
+                    LOG.info("The directory [{}] has more than {} entries, skip caching it.", directory,
+                            this.maxEntries);
+                    return null;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // 父目录不存在，则其中的文件也都不存在
+            return Collections.emptyMap();
+        }
+        return children;
+    }
+
+    private synchronized void cache(Path directory, Map<String, FileStatus> children) {
+        Map<String, FileStatus> previous = this.directories.put(directory, children);
+        if (null != previous) {
+            this.cachedEntries -= previous.size();
+        }
+        this.cachedEntries += children.size();
+
+        Iterator<Map.Entry<Path, Map<String, FileStatus>>> iterator = this.directories.entrySet().iterator();
+        while (this.cachedEntries > this.maxEntries && iterator.hasNext()) {
+            Map.Entry<Path, Map<String, FileStatus>> eldest = iterator.next();
+            if (eldest.getKey().equals(directory)) {
+                continue;
+            }
+            this.cachedEntries -= eldest.getValue().size();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.PathOutputCommitter;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.LineReader;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 不提交MapReduce作业，在当前JVM中检查源文件列表中的所有文件，适合几万到上百万个文件的检查。
+ * 按流式逐行读取源文件列表，通过{@link CheckPipeline}在work-stealing线程池中同时检查多个文件，
+ * JDK 21及以上优先使用虚拟线程。检查逻辑与{@link CheckMapper}相同，检查报告通过作业配置的OutputFormat
+ * 和OutputCommitter写出，输出路径下的part-m-00000、_SUCCESS和metrics-m-00000与只有一个map任务的作业相同。
+ */
+public class LocalCheckRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalCheckRunner.class);
+
+    // 每检查这么多个文件打印一次进度
+    private static final long PROGRESS_INTERVAL = 10000;
+
+    /**
+     * 把计数器累加到Counters中，代替任务上报给ApplicationMaster。
+     */
+    private static final class LocalStatusReporter extends StatusReporter {
+        private final Counters counters = new Counters();
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return this.counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return this.counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+        }
+    }
+
+    private final Configuration configuration;
+
+    public LocalCheckRunner(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * 检查sourceFileList中的文件，job只用来配置输出格式，不会被提交。sourceFileList可以是文件、目录或者通配符。
+     */
+    @SuppressWarnings("unchecked")
+    public boolean run(Job job, Path sourceFileList, Path resultOutputPath, CheckSummary checkSummary)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        FileOutputFormat.setOutputPath(job, resultOutputPath);
+        Configuration jobConfiguration = job.getConfiguration();
+        TaskAttemptID taskAttemptId = new TaskAttemptID("local", 0, TaskType.MAP, 0, 0);
+        LocalStatusReporter statusReporter = new LocalStatusReporter();
+        TaskAttemptContext context = new TaskAttemptContextImpl(jobConfiguration, taskAttemptId, statusReporter);
+
+        OutputFormat<Text, Writable> outputFormat = (OutputFormat<Text, Writable>) ReflectionUtils.newInstance(
+                job.getOutputFormatClass(), jobConfiguration);
+        outputFormat.checkOutputSpecs(job);
+        OutputCommitter outputCommitter = outputFormat.getOutputCommitter(context);
+        outputCommitter.setupJob(job);
+        outputCommitter.setupTask(context);
+
+        boolean succeeded = false;
+        try (FileChecker fileChecker = new FileChecker(jobConfiguration)) {
+            RecordWriter<Text, Writable> recordWriter = outputFormat.getRecordWriter(context);
+            try {
+                this.check(fileChecker, sourceFileList, new CheckReportWriter(context, recordWriter::write),
+                        context);
+            } finally {
+                recordWriter.close(context);
+            }
+            // 与map任务一样累加计数器，并把各阶段的耗时写到输出路径下，由App汇总打印
+            Path workPath = outputCommitter instanceof PathOutputCommitter
+                    ? ((PathOutputCommitter) outputCommitter).getWorkPath() : resultOutputPath;
+            fileChecker.getCheckMetrics().flush(context, workPath);
+            outputCommitter.commitTask(context);
+            outputCommitter.commitJob(job);
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                outputCommitter.abortTask(context);
+                outputCommitter.abortJob(job, JobStatus.State.FAILED);
+            }
+        }
+        checkSummary.add(statusReporter.counters);
+        return true;
+    }
+
+    private void check(FileChecker fileChecker, Path sourceFileList, CheckReportWriter checkReportWriter,
+                       TaskAttemptContext context) throws IOException, InterruptedException {
+        int threads = this.configuration.getInt(Constants.LOCAL_THREADS_KEY, Constants.DEFAULT_LOCAL_THREADS);
+        if (threads <= 0) {
+            throw new IllegalArgumentException(String.format("The %s must be positive, but got %d.",
+                    Constants.LOCAL_THREADS_KEY, threads));
+        }
+        long checkedFiles = 0;
+        long startMillis = System.currentTimeMillis();
+        try (CheckPipeline checkPipeline = new CheckPipeline(threads, checkReportWriter, this.newExecutor(threads))) {
+            for (Path listFile : this.getListFiles(sourceFileList)) {
+                LOG.info("Checking the source files in [{}].", listFile);
+                try (FSDataInputStream inputStream = listFile.getFileSystem(this.configuration).open(listFile)) {
+                    LineReader lineReader = new LineReader(inputStream, this.configuration);
+                    Text line = new Text();
+                    while (lineReader.readLine(line) > 0) {
+                        final String sourceFilePathStr = line.toString().trim();
+                        if (!fileChecker.isSelected(sourceFilePathStr)) {
+                            // 抽样检查时没有被抽中的文件不输出检查报告
+                            CheckSummary.countSkipped(context);
+                            continue;
+                        }
+                        // 窗口满时阻塞，读取源文件列表的速度跟随检查的速度
+                        checkPipeline.submit(sourceFilePathStr, () -> fileChecker.check(sourceFilePathStr));
+                        if (++checkedFiles % PROGRESS_INTERVAL == 0) {
+                            LOG.info("Submitted {} source files in {} ms.", checkedFiles,
+                                    System.currentTimeMillis() - startMillis);
+                        }
+                    }
+                }
+            }
+            checkPipeline.flush();
+        }
+        LOG.info("Checked {} source files with {} threads in {} ms.", checkedFiles, threads,
+                System.currentTimeMillis() - startMillis);
+    }
+
+    /**
+     * 源文件列表中的文件，目录按FileInputFormat的规则跳过以_和.开头的文件。
+     */
+    private List<Path> getListFiles(Path sourceFileList) throws IOException {
+        FileSystem fs = sourceFileList.getFileSystem(this.configuration);
+        FileStatus[] matches = fs.globStatus(sourceFileList);
+        if (null == matches || matches.length == 0) {
+            throw new IOException(String.format("The source file list [%s] does not exist.", sourceFileList));
+        }
+        List<Path> listFiles = new ArrayList<>();
+        for (FileStatus match : matches) {
+            FileStatus[] children = match.isDirectory() ? fs.listStatus(match.getPath()) : new FileStatus[]{match};
+            for (FileStatus child : children) {
+                String name = child.getPath().getName();
+                if (child.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+                    listFiles.add(child.getPath());
+                }
+            }
+        }
+        return listFiles;
+    }
+
+    /**
+     * JDK 21及以上并且开启了虚拟线程时每个检查使用一个虚拟线程，否则使用work-stealing线程池。
+     * 同时检查的文件数都由窗口大小限制。
+     */
+    private ExecutorService newExecutor(int threads) {
+        if (this.configuration.getBoolean(Constants.LOCAL_VIRTUAL_THREADS_ENABLED_KEY,
+                Constants.DEFAULT_LOCAL_VIRTUAL_THREADS_ENABLED)) {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                LOG.info("Checking at most {} files concurrently in virtual threads.", threads);
+                return (ExecutorService) method.invoke(null);
+            } catch (NoSuchMethodException e) {
+                LOG.debug("Virtual threads are not available in this JVM.");
+            } catch (ReflectiveOperationException e) {
+                LOG.warn("Failed to create the virtual thread executor.", e);
+            }
+        }
+        LOG.info("Checking at most {} files concurrently in a work-stealing pool.", threads);
+        return Executors.newWorkStealingPool(threads);
+    }
+}
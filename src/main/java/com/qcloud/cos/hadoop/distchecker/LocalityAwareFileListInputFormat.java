@@ -0,0 +1,195 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按照源文件数据块所在的节点切分源文件列表的InputFormat，使map任务尽量调度到保存了数据的节点上，在本地读取源文件。
+ * 作业提交时通过{@link GroupedFileStatusLookup}按父目录调用listLocatedStatus，取得目录下所有文件的数据块位置，
+ * 不需要对每个文件调用getFileBlockLocations。
+ * 每个文件归到保存了它最多字节的节点上，同一个节点的文件按源文件列表中的顺序装入分片，
+ * 每个分片的开销不超过总开销除以分片数，分片的位置为保存了分片中最多字节的几个节点。
+ * 没有数据块位置的文件（例如对象存储上的文件、空文件）单独切分，不指定位置。
+ */
+public class LocalityAwareFileListInputFormat extends BalancedFileListInputFormat {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalityAwareFileListInputFormat.class);
+
+    // 每个分片最多指定的节点数，与HDFS默认的副本数相同
+    private static final int MAX_SPLIT_HOSTS = 3;
+    private static final String NO_HOST = "";
+
+    private static final class ListEntry {
+        private final long index;
+        private final String path;
+        private final long length;
+        private final long cost;
+        private final Map<String, Long> hostBytes;      // 每个节点上保存的这个文件的字节数
+
+        private ListEntry(long index, String path, long length, long cost, Map<String, Long> hostBytes) {
+            this.index = index;
+            this.path = path;
+            this.length = length;
+            this.cost = cost;
+            this.hostBytes = hostBytes;
+        }
+
+        /**
+         * 在hosts中的某一个节点上可以读到的最多字节数，不同节点上的数据块不重复计算。
+         */
+        private long getLocalBytes(String[] hosts) {
+            long localBytes = 0;
+            for (String host : hosts) {
+                localBytes = Math.max(localBytes, this.hostBytes.getOrDefault(host, 0L));
+            }
+            return localBytes;
+        }
+
+        /**
+         * 保存了最多字节的节点，字节数相同时取名字最小的节点，没有数据块位置时返回NO_HOST。
+         */
+        private String getPrimaryHost() {
+            String primaryHost = NO_HOST;
+            long maxBytes = 0;
+            for (Map.Entry<String, Long> hostEntry : this.hostBytes.entrySet()) {
+                if (hostEntry.getValue() > maxBytes
+                        || (hostEntry.getValue() == maxBytes && hostEntry.getKey().compareTo(primaryHost) < 0)) {
+                    primaryHost = hostEntry.getKey();
+                    maxBytes = hostEntry.getValue();
+                }
+            }
+            return primaryHost;
+        }
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        Configuration configuration = job.getConfiguration();
+        long perFileCost = configuration.getLong(Constants.BALANCED_SPLIT_PER_FILE_COST_KEY,
+                Constants.DEFAULT_BALANCED_SPLIT_PER_FILE_COST);
+        if (perFileCost < 0) {
+            throw new IOException(String.format("The %s can not be negative, but got %d.",
+                    Constants.BALANCED_SPLIT_PER_FILE_COST_KEY, perFileCost));
+        }
+
+        List<String> pathStrs = new ArrayList<>();
+        for (FileStatus listFileStatus : this.listStatus(job)) {
+            readListFile(listFileStatus.getPath(), configuration, pathStrs);
+        }
+        List<ListEntry> entries = locate(pathStrs, perFileCost, configuration);
+        long totalCost = 0;
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        for (ListEntry entry : entries) {
+            totalCost += entry.cost;
+        }
+
+        int splitNum = getSplitNum(configuration, totalCost, entries.size());
+        long maxSplitCost = (totalCost + splitNum - 1) / splitNum;
+
+        // 按节点分组，节点按名字排序使得切分的结果是确定的，组内保持源文件列表中的顺序
+        Map<String, List<ListEntry>> hostEntries = new TreeMap<>();
+        for (ListEntry entry : entries) {
+            hostEntries.computeIfAbsent(entry.getPrimaryHost(), host -> new ArrayList<>()).add(entry);
+        }
+
+        List<FileListSplit> splits = new ArrayList<>();
+        List<List<ListEntry>> splitEntriesList = new ArrayList<>();
+        for (List<ListEntry> group : hostEntries.values()) {
+            List<ListEntry> splitEntries = new ArrayList<>();
+            long splitCost = 0;
+            for (ListEntry entry : group) {
+                if (!splitEntries.isEmpty() && splitCost + entry.cost > maxSplitCost) {
+                    splits.add(newSplit(splitEntries, splitCost));
+                    splitEntriesList.add(splitEntries);
+                    splitEntries = new ArrayList<>();
+                    splitCost = 0;
+                }
+                splitEntries.add(entry);
+                splitCost += entry.cost;
+            }
+            splits.add(newSplit(splitEntries, splitCost));
+            splitEntriesList.add(splitEntries);
+        }
+
+        // 统计map任务调度到分片指定的节点上时可以在本地读取的字节数
+        long localBytes = 0;
+        long locatedBytes = 0;
+        for (int i = 0; i < splits.size(); i++) {
+            String[] hosts = splits.get(i).getLocations();
+            for (ListEntry entry : splitEntriesList.get(i)) {
+                if (!entry.hostBytes.isEmpty()) {
+                    locatedBytes += entry.length;
+                    localBytes += entry.getLocalBytes(hosts);
+                }
+            }
+        }
+        LOG.info("Packed {} source files on {} hosts into {} splits, the max cost of a split is {}, "
+                        + "{} of {} located bytes can be read locally.",
+                entries.size(), hostEntries.size() - (hostEntries.containsKey(NO_HOST) ? 1 : 0), splits.size(),
+                maxSplitCost, localBytes, locatedBytes);
+        return new ArrayList<>(splits);
+    }
+
+    /**
+     * 分片的位置取保存了分片中最多字节的几个节点。
+     */
+    private static FileListSplit newSplit(List<ListEntry> splitEntries, long splitCost) {
+        Map<String, Long> hostBytes = new HashMap<>();
+        List<String> paths = new ArrayList<>(splitEntries.size());
+        splitEntries.sort(Comparator.comparingLong(entry -> entry.index));
+        for (ListEntry entry : splitEntries) {
+            paths.add(entry.path);
+            for (Map.Entry<String, Long> hostEntry : entry.hostBytes.entrySet()) {
+                hostBytes.merge(hostEntry.getKey(), hostEntry.getValue(), Long::sum);
+            }
+        }
+        List<Map.Entry<String, Long>> sortedHosts = new ArrayList<>(hostBytes.entrySet());
+        sortedHosts.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        String[] hosts = new String[Math.min(MAX_SPLIT_HOSTS, sortedHosts.size())];
+        for (int i = 0; i < hosts.length; i++) {
+            hosts[i] = sortedHosts.get(i).getKey();
+        }
+        return new FileListSplit(paths, splitCost, hosts);
+    }
+
+    /**
+     * 查询源文件的长度和数据块位置，查询不到的文件只计请求开销。
+     */
+    private static List<ListEntry> locate(List<String> pathStrs, long perFileCost, Configuration configuration)
+            throws IOException {
+        GroupedFileStatusLookup lookup = GroupedFileStatusLookup.lookup(pathStrs, configuration, true);
+        List<ListEntry> entries = new ArrayList<>(pathStrs.size());
+        for (int i = 0; i < pathStrs.size(); i++) {
+            FileStatus fileStatus = lookup.getFileStatus(i);
+            long length = null == fileStatus ? 0 : fileStatus.getLen();
+            Map<String, Long> hostBytes = new HashMap<>();
+            if (null != lookup.getBlockLocations(i)) {
+                for (BlockLocation blockLocation : lookup.getBlockLocations(i)) {
+                    for (String host : blockLocation.getHosts()) {
+                        // 对象存储返回的localhost不是真实的节点
+                        if (!"localhost".equals(host)) {
+                            hostBytes.merge(host, blockLocation.getLength(), Long::sum);
+                        }
+                    }
+                }
+            }
+            entries.add(new ListEntry(i, pathStrs.get(i), length, length + perFileCost, hostBytes));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,105 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.Path;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 把源路径转换成目的路径，源工作目录和目的工作目录只在构造时解析一次，可以在多个线程中同时使用。
+ * 源文件位于源工作目录下时，把路径中源工作目录的前缀替换成目的工作目录；否则把源文件的完整路径拼接在目的工作目录的后面。
+ * 转换只做字符串的前缀运算，不再逐级向上查找父目录，也不再用正则表达式替换，路径中可以包含正则表达式的元字符。
+ * 同一个目录下的文件共用限定后的目的父目录，按源目录做LRU缓存。
+ */
+public class PathMapper {
+    private static final int MAX_CACHED_PARENTS = 1024;
+
+    private final String sourceWorkingDir;          // 源工作目录的路径部分，源工作目录是根目录时为null
+    private final String targetWorkingDir;          // 目的工作目录的完整路径
+    private final String targetWorkingDirPrefix;    // 目的工作目录的路径部分，根目录时为空串
+    private final URI targetWorkingUri;
+    private final Path targetWorkingPath;
+
+    private final Map<String, Path> targetParents = new LinkedHashMap<String, Path>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+            return this.size() > MAX_CACHED_PARENTS;
+        }
+    };
+
+    public PathMapper(Path sourceWorkingDirPath, Path targetWorkingDirPath) {
+        // 先全部转成不带scheme和authority的路径，工作目录是根目录时没有前缀
+        this.sourceWorkingDir = getPathPrefix(sourceWorkingDirPath);
+        this.targetWorkingDir = targetWorkingDirPath.toString();
+        String targetWorkingDirPrefix = getPathPrefix(targetWorkingDirPath);
+        this.targetWorkingDirPrefix = null == targetWorkingDirPrefix ? "" : targetWorkingDirPrefix;
+        this.targetWorkingUri = targetWorkingDirPath.toUri();
+        this.targetWorkingPath = targetWorkingDirPath;
+    }
+
+    public Path getTargetPath(Path sourcePath) {
+        String sourceFilePath = sourcePath.toUri().getPath();
+        int nameIndex = sourceFilePath.lastIndexOf(Path.SEPARATOR_CHAR);
+        String sourceParent = sourceFilePath.substring(0, nameIndex);
+
+        Path targetParent;
+        synchronized (this.targetParents) {
+            targetParent = this.targetParents.get(sourceParent);
+        }
+        if (null == targetParent) {
+            targetParent = this.getTargetParent(sourceParent);
+            synchronized (this.targetParents) {
+                this.targetParents.put(sourceParent, targetParent);
+            }
+        }
+
+        URI targetParentUri = targetParent.toUri();
+        return new Path(targetParentUri.getScheme(), targetParentUri.getAuthority(),
+                targetParentUri.getPath() + sourceFilePath.substring(nameIndex));
+    }
+
+    /**
+     * 转换源目录，源工作目录本身转换成目的工作目录，其他目录与文件的转换规则相同。
+     */
+    public Path getTargetDirectory(Path sourceDirectoryPath) {
+        String sourceDirectory = getPathPrefix(sourceDirectoryPath);
+        if (null == sourceDirectory ? null == this.sourceWorkingDir : sourceDirectory.equals(this.sourceWorkingDir)) {
+            String targetDirectory = this.targetWorkingDirPrefix.isEmpty() ? Path.SEPARATOR
+                    : this.targetWorkingDirPrefix;
+            return new Path(targetDirectory).makeQualified(this.targetWorkingUri, this.targetWorkingPath);
+        }
+        return this.getTargetPath(sourceDirectoryPath);
+    }
+
+    /**
+     * 转换源文件的父目录，sourceParent是父目录的路径部分，文件位于根目录下时为空串。
+     */
+    private Path getTargetParent(String sourceParent) {
+        String targetParent;
+        if (null != this.sourceWorkingDir && sourceParent.startsWith(this.sourceWorkingDir)
+                && (sourceParent.length() == this.sourceWorkingDir.length()
+                || sourceParent.charAt(this.sourceWorkingDir.length()) == Path.SEPARATOR_CHAR)) {
+            // 源文件位于源工作目录下，替换前缀
+            targetParent = this.targetWorkingDir + sourceParent.substring(this.sourceWorkingDir.length());
+        } else {
+            targetParent = this.targetWorkingDirPrefix + sourceParent;
+        }
+        if (targetParent.isEmpty()) {
+            targetParent = Path.SEPARATOR;
+        }
+        return new Path(targetParent).makeQualified(this.targetWorkingUri, this.targetWorkingPath);
+    }
+
+    /**
+     * 返回目录的路径部分，根目录返回null。
+     */
+    private static String getPathPrefix(Path directory) {
+        String path = directory.toUri().getPath();
+        if (path.isEmpty()) {
+            return null;
+        }
+        Path relativePath = new Path(path);
+        return relativePath.isRoot() ? null : relativePath.toString();
+    }
+}
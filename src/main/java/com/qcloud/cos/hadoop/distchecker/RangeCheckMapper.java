@@ -0,0 +1,99 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * 配合FileRangeInputFormat使用的Mapper。
+ * 完整的文件直接在map端检查并输出检查报告；大文件的每一段只计算CRC64，交给RangeCombineReducer合并后再检查。
+ */
+public class RangeCheckMapper extends Mapper<Text, FileRange, Text, RangeChecksum> {
+    private static final Logger LOG = LoggerFactory.getLogger(RangeCheckMapper.class);
+
+    // map端直接输出检查报告的named output
+    public static final String REPORT_NAMED_OUTPUT = "report";
+
+    private FileChecker fileChecker = null;
+    private MultipleOutputs<Text, RangeChecksum> multipleOutputs = null;
+    private CheckReportWriter checkReportWriter = null;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        this.fileChecker = new FileChecker(context.getConfiguration());
+        this.multipleOutputs = new MultipleOutputs<>(context);
+        // 不经过reduce，直接写到检查报告的输出目录中
+        this.checkReportWriter = new CheckReportWriter(context,
+                (key, value) -> this.multipleOutputs.write(REPORT_NAMED_OUTPUT, key, value));
+        if (null != context.getConfiguration().get(Constants.CATALOG_OUTPUT_KEY)) {
+            this.fileChecker.setChecksumRecorder(new ChecksumCatalogWriter(this.multipleOutputs));
+        }
+    }
+
+    @Override
+    protected void map(Text key, FileRange value, Context context) throws IOException, InterruptedException {
+        String sourceFilePathStr = key.toString();
+        if (value.isWholeFile()) {
+            CheckReport checkReport = this.fileChecker.check(sourceFilePathStr);
+            this.checkReportWriter.write(sourceFilePathStr, checkReport);
+            return;
+        }
+
+        try {
+            this.fileChecker.checkInputPathStr(sourceFilePathStr);
+        } catch (IOException e) {
+            // 输出标记，由reduce端统一输出UNCHECKED的检查报告
+            LOG.warn("Check input path [{}] failed.", sourceFilePathStr, e);
+            context.write(key, RangeChecksum.failed(value.getOffset(), value.getFileLength()));
+            return;
+        }
+
+        long crc64;
+        try {
+            long startNanos = System.nanoTime();
+            crc64 = this.fileChecker.getCrc64Calculator().computeRange(this.fileChecker.getSourceFs(),
+                    new Path(sourceFilePathStr), value.getOffset(), value.getLength());
+            this.fileChecker.getCheckMetrics().record(CheckPhase.CHECKSUM, startNanos);
+            this.fileChecker.getCheckMetrics().addChecksumBytes(value.getLength());
+        } catch (FileNotFoundException e) {
+            // 输出标记，由reduce端统一输出SOURCE_FILE_MISSING的检查报告
+            LOG.warn("The source file [{}] is missing.", sourceFilePathStr, e);
+            context.write(key, RangeChecksum.failed(value.getOffset(), value.getFileLength()));
+            return;
+        } catch (IOException e) {
+            // 例如源文件在切分以后变短了，输出标记，由reduce端输出UNCONFIRM或者SOURCE_FILE_MISSING的检查报告
+            LOG.warn("Read the source file [{}] from {} to {} failed.", sourceFilePathStr, value.getOffset(),
+                    value.getOffset() + value.getLength(), e);
+            context.write(key, RangeChecksum.failed(value.getOffset(), value.getFileLength()));
+            return;
+        }
+        LOG.debug("Finish compute the crc64 of the source file [{}] from {} to {}.", sourceFilePathStr,
+                value.getOffset(), value.getOffset() + value.getLength());
+        context.write(key, new RangeChecksum(value.getOffset(), value.getLength(), value.getFileLength(), crc64));
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        LOG.info("Begin to clean up the range check mapper.");
+        try {
+            // 汇总本任务各阶段的耗时
+            this.fileChecker.getCheckMetrics().flush(context);
+        } finally {
+            if (null != this.multipleOutputs) {
+                this.multipleOutputs.close();
+            }
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+        }
+        super.cleanup(context);
+    }
+}
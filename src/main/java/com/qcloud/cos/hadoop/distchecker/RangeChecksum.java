@@ -0,0 +1,83 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 源文件中一段数据的CRC64，由RangeCheckMapper计算，在RangeCombineReducer中按offset合并。
+ * 某一段无法计算时输出长度为-1的标记，保证reduce端总能为这个文件输出检查报告。
+ */
+public class RangeChecksum implements Writable {
+    private static final long FAILED_LENGTH = -1;
+
+    private long offset;
+    private long length;
+    private long fileLength;
+    private long crc64;
+
+    public RangeChecksum() {
+    }
+
+    public RangeChecksum(long offset, long length, long fileLength, long crc64) {
+        this.offset = offset;
+        this.length = length;
+        this.fileLength = fileLength;
+        this.crc64 = crc64;
+    }
+
+    /**
+     * 源文件路径不合法或者源文件已经不存在时，代替这一段CRC64的标记。
+     */
+    public static RangeChecksum failed(long offset, long fileLength) {
+        return new RangeChecksum(offset, FAILED_LENGTH, fileLength, 0);
+    }
+
+    public boolean isFailed() {
+        return this.length == FAILED_LENGTH;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    public long getCrc64() {
+        return crc64;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.offset);
+        out.writeLong(this.length);
+        out.writeLong(this.fileLength);
+        out.writeLong(this.crc64);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        this.offset = in.readLong();
+        this.length = in.readLong();
+        this.fileLength = in.readLong();
+        this.crc64 = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "RangeChecksum{" +
+                "offset=" + offset +
+                ", length=" + length +
+                ", fileLength=" + fileLength +
+                ", crc64=" + crc64 +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import com.qcloud.cos.hadoop.distchecker.checksum.CRC64Combiner;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 将同一个大文件各段的CRC64按offset排序后合并成整个文件的CRC64，再与目的文件的CRC64进行比较。
+ * 只按CRC64比较，目的文件没有CRC64时输出UNCHECKED或者TARGET_FILESYSTEM_ERROR，不会在reduce任务中重新读取整个源文件。
+ */
+public class RangeCombineReducer extends Reducer<Text, RangeChecksum, Text, Writable> {
+    private static final Logger LOG = LoggerFactory.getLogger(RangeCombineReducer.class);
+
+    private FileChecker fileChecker = null;
+    private CheckReportWriter checkReportWriter = null;
+    private MultipleOutputs<Text, Writable> multipleOutputs = null;     // 输出校验值目录项
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        this.fileChecker = new FileChecker(context.getConfiguration());
+        this.checkReportWriter = new CheckReportWriter(context, context::write);
+        if (null != context.getConfiguration().get(Constants.CATALOG_OUTPUT_KEY)) {
+            this.multipleOutputs = new MultipleOutputs<>(context);
+            this.fileChecker.setChecksumRecorder(new ChecksumCatalogWriter(this.multipleOutputs));
+        }
+    }
+
+    @Override
+    protected void reduce(Text key, Iterable<RangeChecksum> values, Context context)
+            throws IOException, InterruptedException {
+        // Hadoop会复用value对象，这里需要拷贝一份
+        List<RangeChecksum> rangeChecksums = new ArrayList<>();
+        boolean failed = false;
+        for (RangeChecksum value : values) {
+            if (value.isFailed()) {
+                failed = true;
+                continue;
+            }
+            rangeChecksums.add(new RangeChecksum(value.getOffset(), value.getLength(), value.getFileLength(),
+                    value.getCrc64()));
+        }
+
+        CheckReport checkReport;
+        if (failed) {
+            // 有的段无法计算CRC64：路径不合法时输出UNCHECKED，源文件不存在时输出SOURCE_FILE_MISSING，
+            // 读取失败（例如源文件在切分以后变短了）或者源文件又出现时无法确认合并后的CRC64
+            LOG.warn("Some ranges of the source file [{}] failed.", key);
+            checkReport = this.fileChecker.check(key.toString(), (sourceFilePath, sourceFileStatus) -> null);
+        } else {
+            checkReport = this.check(key.toString(), rangeChecksums);
+        }
+        this.checkReportWriter.write(key.toString(), checkReport);
+    }
+
+    private CheckReport check(String sourceFilePathStr, List<RangeChecksum> rangeChecksums) throws IOException {
+        rangeChecksums.sort(Comparator.comparingLong(RangeChecksum::getOffset));
+
+        // 检查各段是否完整覆盖了整个文件，源文件列表中重复的行会产生重复的段
+        long fileLength = rangeChecksums.get(0).getFileLength();
+        long coveredLength = 0;
+        long[] crcs = new long[rangeChecksums.size()];
+        long[] lengths = new long[rangeChecksums.size()];
+        int count = 0;
+        for (RangeChecksum rangeChecksum : rangeChecksums) {
+            if (rangeChecksum.getOffset() < coveredLength) {
+                continue;
+            }
+            if (rangeChecksum.getOffset() > coveredLength) {
+                break;
+            }
+            crcs[count] = rangeChecksum.getCrc64();
+            lengths[count] = rangeChecksum.getLength();
+            count++;
+            coveredLength += rangeChecksum.getLength();
+        }
+        long crc64 = CRC64Combiner.combine(crcs, lengths, count);
+
+        final boolean complete = coveredLength == fileLength;
+        if (!complete) {
+            LOG.warn("The ranges of the source file [{}] only cover {} of {} bytes.", sourceFilePathStr,
+                    coveredLength, fileLength);
+        }
+        final long sourceFileChecksum = crc64;
+        return this.fileChecker.check(sourceFilePathStr, (sourceFilePath, sourceFileStatus) -> {
+            if (!complete || sourceFileStatus.getLen() != fileLength) {
+                // 源文件在切分以后发生了变化，无法确认合并后的CRC64
+                return null;
+            }
+            return sourceFileChecksum;
+        });
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        LOG.info("Begin to clean up the range combine reducer.");
+        try {
+            // 汇总本任务各阶段的耗时
+            this.fileChecker.getCheckMetrics().flush(context);
+        } finally {
+            if (null != this.multipleOutputs) {
+                this.multipleOutputs.close();
+            }
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+        }
+        super.cleanup(context);
+    }
+}
@@ -0,0 +1,72 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.util.EnumSet;
+
+/**
+ * 将二进制格式的检查报告还原成文本格式输出到标准输出，可以只输出指定的检查结果。
+ */
+public class ReportDumper extends Configured implements Tool {
+
+    public String usage() {
+        return "[report output path] [check result ...]";
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(ToolRunner.run(new ReportDumper(), args));
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println(usage());
+            return -1;
+        }
+
+        EnumSet<CheckResult> checkResults = EnumSet.noneOf(CheckResult.class);
+        for (int i = 1; i < args.length; i++) {
+            checkResults.add(CheckResult.valueOf(args[i]));
+        }
+        if (checkResults.isEmpty()) {
+            checkResults = EnumSet.allOf(CheckResult.class);
+        }
+
+        Path reportOutputPath = new Path(args[0]);
+        FileSystem fs = reportOutputPath.getFileSystem(this.getConf());
+        RemoteIterator<LocatedFileStatus> iterator = fs.listFiles(reportOutputPath, true);
+        while (iterator.hasNext()) {
+            Path reportPath = iterator.next().getPath();
+            String name = reportPath.getName();
+            if (!name.startsWith("part-") && !name.startsWith(RangeCheckMapper.REPORT_NAMED_OUTPUT + "-")
+                    && !name.startsWith(ResumeJoinReducer.RESUMED_FILE_PREFIX)) {
+                continue;
+            }
+            try (SequenceFile.Reader reader = new SequenceFile.Reader(this.getConf(),
+                    SequenceFile.Reader.file(reportPath))) {
+                String sourceRoot = reader.getMetadata().get(
+                        new Text(CheckRecordOutputFormat.SOURCE_ROOT_METADATA)).toString();
+                String targetRoot = reader.getMetadata().get(
+                        new Text(CheckRecordOutputFormat.TARGET_ROOT_METADATA)).toString();
+                Text key = new Text();
+                CheckRecord checkRecord = new CheckRecord();
+                while (reader.next(key, checkRecord)) {
+                    if (!checkResults.contains(checkRecord.getCheckResult())) {
+                        continue;
+                    }
+                    CheckReport checkReport = checkRecord.toReport(key.toString(), sourceRoot, targetRoot);
+                    System.out.println(checkReport.getKeyPath() + "\t" + checkReport);
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.file.AccessDeniedException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制一个任务中对目的文件系统的请求速率，并重试暂时性的失败。
+ * 请求速率按AIMD调整：被限流（503 SlowDown、429）时速率减半，之后每秒增加固定的步长，直到达到任务的QPS上限；
+ * 没有设置上限时，第一次被限流以前不限速，被限流时以最近一秒实际的请求速率为基准减半。
+ * 被限流和暂时性的失败（超时、连接断开、5xx）按带随机抖动的指数退避重试，超过重试次数后抛出最后一次的异常。
+ */
+public class RequestThrottler {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestThrottler.class);
+
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double DECREASE_FACTOR = 0.5;
+
+    /**
+     * 一次对文件系统的请求。
+     */
+    public interface Request<T> {
+        T call() throws IOException;
+    }
+
+    private final TokenBucket tokenBucket;
+    private final double maxRate;           // 任务的QPS上限，不大于0时不限
+    private final double minRate;
+    private final double increaseStep;
+    private final int maxRetries;
+    private final long baseSleepMillis;
+    private final long maxSleepMillis;
+    private final CheckMetrics checkMetrics;
+
+    // 以下状态由this保护
+    private long lastAdjustNanos;
+    private long windowStartNanos;
+    private long windowRequests;
+    private double observedRate;
+
+    public RequestThrottler(Configuration configuration, CheckMetrics checkMetrics) {
+        this.checkMetrics = checkMetrics;
+        this.maxRate = getTaskBudget(configuration, Constants.TARGET_QPS_KEY);
+        this.minRate = configuration.getDouble(Constants.TARGET_QPS_MIN_PER_TASK_KEY,
+                Constants.DEFAULT_TARGET_QPS_MIN_PER_TASK);
+        this.increaseStep = configuration.getDouble(Constants.TARGET_QPS_INCREASE_PER_TASK_KEY,
+                Constants.DEFAULT_TARGET_QPS_INCREASE_PER_TASK);
+        if (this.minRate <= 0 || this.increaseStep <= 0) {
+            throw new IllegalArgumentException(String.format("The %s and %s must be positive.",
+                    Constants.TARGET_QPS_MIN_PER_TASK_KEY, Constants.TARGET_QPS_INCREASE_PER_TASK_KEY));
+        }
+        this.maxRetries = configuration.getInt(Constants.RETRY_MAX_ATTEMPTS_KEY,
+                Constants.DEFAULT_RETRY_MAX_ATTEMPTS);
+        this.baseSleepMillis = configuration.getLong(Constants.RETRY_BASE_SLEEP_MS_KEY,
+                Constants.DEFAULT_RETRY_BASE_SLEEP_MS);
+        this.maxSleepMillis = configuration.getLong(Constants.RETRY_MAX_SLEEP_MS_KEY,
+                Constants.DEFAULT_RETRY_MAX_SLEEP_MS);
+
+        this.tokenBucket = new TokenBucket(this.maxRate > 0 ? Math.max(this.maxRate, this.minRate) : 0);
+        this.windowStartNanos = System.nanoTime();
+        // 第一次被限流时立即减速
+        this.lastAdjustNanos = this.windowStartNanos - ADJUST_INTERVAL_NANOS;
+        if (this.maxRate > 0) {
+            LOG.info("Limit the requests to the target file system to {} per second in this task.", this.maxRate);
+        }
+    }
+
+    /**
+     * 获得令牌后执行请求，被限流或者暂时性的失败时退避重试。
+     */
+    public <T> T execute(String operation, Path path, Request<T> request) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            this.acquire();
+            try {
+                T result = request.call();
+                this.onSuccess();
+                return result;
+            } catch (IOException e) {
+                boolean throttled = isThrottled(e);
+                if (throttled) {
+                    this.onThrottled();
+                }
+                if (attempt >= this.maxRetries || !(throttled || isTransient(e))) {
+                    throw e;
+                }
+                long sleepMillis = this.getBackoffMillis(attempt);
+                LOG.warn("The {} of the path [{}] failed, retry {}/{} after {} ms: {}", operation, path,
+                        attempt + 1, this.maxRetries, sleepMillis, e.toString());
+                this.checkMetrics.addRetriedRequest();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleepMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(String.format("Retrying the %s of the path [%s] is interrupted.",
+                            operation, path));
+                }
+            }
+        }
+    }
+
+    /**
+     * 报告不经过execute的请求失败，例如列目录时翻页的请求。这些请求不会重试，但被限流时仍然需要减速。
+     */
+    public void reportFailure(IOException e) {
+        if (isThrottled(e)) {
+            this.onThrottled();
+        }
+    }
+
+    public double getRate() {
+        return this.tokenBucket.getRate();
+    }
+
+    private void acquire() throws InterruptedIOException {
+        long waitNanos = this.tokenBucket.acquire(1);
+        if (waitNanos > 0) {
+            this.checkMetrics.recordNanos(CheckPhase.THROTTLE, waitNanos);
+        }
+        synchronized (this) {
+            long nowNanos = System.nanoTime();
+            if (nowNanos - this.windowStartNanos >= ADJUST_INTERVAL_NANOS) {
+                this.observedRate = this.windowRequests
+                        / ((nowNanos - this.windowStartNanos) / (double) TimeUnit.SECONDS.toNanos(1));
+                this.windowStartNanos = nowNanos;
+                this.windowRequests = 0;
+            }
+            this.windowRequests++;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        double rate = this.tokenBucket.getRate();
+        long nowNanos = System.nanoTime();
+        if (rate <= 0 || nowNanos - this.lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+            return;
+        }
+        // 加性增长，不超过任务的QPS上限
+        double increasedRate = rate + this.increaseStep;
+        if (this.maxRate > 0) {
+            increasedRate = Math.min(increasedRate, Math.max(this.maxRate, this.minRate));
+        }
+        if (increasedRate != rate) {
+            this.tokenBucket.setRate(increasedRate);
+        }
+        this.lastAdjustNanos = nowNanos;
+    }
+
+    private synchronized void onThrottled() {
+        this.checkMetrics.addThrottledRequest();
+        long nowNanos = System.nanoTime();
+        double rate = this.tokenBucket.getRate();
+        if (rate > 0 && nowNanos - this.lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+            // 同一批并发请求的限流只减速一次
+            return;
+        }
+        if (rate <= 0) {
+            // 还没有限速，以最近的实际速率为基准
+            double elapsedSeconds = (nowNanos - this.windowStartNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            rate = Math.max(this.observedRate, elapsedSeconds > 0 ? this.windowRequests / elapsedSeconds : 0);
+        }
+        double decreasedRate = Math.max(this.minRate, rate * DECREASE_FACTOR);
+        LOG.warn("The requests to the target file system are throttled, decrease the rate to {} per second.",
+                String.format("%.2f", decreasedRate));
+        this.tokenBucket.setRate(decreasedRate);
+        this.lastAdjustNanos = nowNanos;
+    }
+
+    /**
+     * 带随机抖动的指数退避：在[0, min(maxSleep, baseSleep * 2^attempt)]中随机取值。
+     */
+    private long getBackoffMillis(int attempt) {
+        long ceiling = this.maxSleepMillis;
+        if (attempt < 32) {
+            ceiling = Math.min(this.maxSleepMillis, this.baseSleepMillis << attempt);
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    static boolean isThrottled(Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (null != message && (message.contains("SlowDown") || message.contains("Status Code: 503")
+                    || message.contains("Status Code: 429") || message.contains("Too Many Requests"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (cause instanceof FileNotFoundException || cause instanceof AccessDeniedException) {
+                return false;
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof SocketException) {
+                return true;
+            }
+            if (cause instanceof InterruptedIOException || cause instanceof InterruptedException) {
+                return false;
+            }
+            String message = cause.getMessage();
+            if (null != message && (message.contains("Status Code: 500") || message.contains("Status Code: 502")
+                    || message.contains("Status Code: 504"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将作业级别的预算平分到同时运行的任务上，预算不大于0时返回-1，即不限制。
+     * 提交作业时mapreduce.job.maps会被设置为实际的map任务数，同时运行的任务数还受
+     * mapreduce.job.running.map.limit的限制。
+     */
+    static double getTaskBudget(Configuration configuration, String budgetKey) {
+        double jobBudget = configuration.getDouble(budgetKey, -1);
+        if (jobBudget <= 0) {
+            return -1;
+        }
+        boolean isMap = configuration.getBoolean(MRJobConfig.TASK_ISMAP, true);
+        int tasks = isMap
+                ? configuration.getInt(MRJobConfig.NUM_MAPS, 1)
+                : configuration.getInt(MRJobConfig.NUM_REDUCES, 1);
+        int runningLimit = isMap
+                ? configuration.getInt(MRJobConfig.JOB_RUNNING_MAP_LIMIT, 0)
+                : configuration.getInt(MRJobConfig.JOB_RUNNING_REDUCE_LIMIT, 0);
+        if (runningLimit > 0) {
+            tasks = Math.min(tasks, runningLimit);
+        }
+        return jobBudget / Math.max(tasks, 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 续跑时按源文件路径关联源文件列表和上一次的检查报告，value为源文件列表中的一行或者上一次的一条检查报告。
+ */
+public class ResumeEntry implements Writable {
+    private static final byte REPORT_NONE = 0;
+    private static final byte REPORT_TEXT = 1;
+    private static final byte REPORT_RECORD = 2;
+
+    private String listedLine;          // 源文件列表中的原始行，来自检查报告时为null
+    private CheckResult checkResult;
+    private CheckMethod checkMethod;
+    private long sourceFileLength;
+    private Writable report;            // 文本格式为Text，二进制格式为CheckRecord
+
+    public ResumeEntry() {
+    }
+
+    public static ResumeEntry listed(String listedLine) {
+        ResumeEntry resumeEntry = new ResumeEntry();
+        resumeEntry.listedLine = listedLine;
+        return resumeEntry;
+    }
+
+    public static ResumeEntry reported(CheckResult checkResult, CheckMethod checkMethod, long sourceFileLength,
+                                       Writable report) {
+        ResumeEntry resumeEntry = new ResumeEntry();
+        resumeEntry.checkResult = checkResult;
+        resumeEntry.checkMethod = checkMethod;
+        resumeEntry.sourceFileLength = sourceFileLength;
+        resumeEntry.report = report;
+        return resumeEntry;
+    }
+
+    public boolean isListed() {
+        return null != listedLine;
+    }
+
+    public String getListedLine() {
+        return listedLine;
+    }
+
+    public CheckResult getCheckResult() {
+        return checkResult;
+    }
+
+    public CheckMethod getCheckMethod() {
+        return checkMethod;
+    }
+
+    public long getSourceFileLength() {
+        return sourceFileLength;
+    }
+
+    public Writable getReport() {
+        return report;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (this.isListed()) {
+            out.writeByte(REPORT_NONE);
+            Text.writeString(out, this.listedLine);
+            return;
+        }
+        out.writeByte(this.report instanceof CheckRecord ? REPORT_RECORD : REPORT_TEXT);
+        out.writeByte(this.checkResult.ordinal());
+        out.writeByte(this.checkMethod.ordinal());
+        WritableUtils.writeVLong(out, this.sourceFileLength);
+        this.report.write(out);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        byte reportType = in.readByte();
+        if (reportType == REPORT_NONE) {
+            this.listedLine = Text.readString(in);
+            this.checkResult = null;
+            this.checkMethod = null;
+            this.report = null;
+            return;
+        }
+        this.listedLine = null;
+        this.checkResult = CheckResult.values()[in.readByte()];
+        this.checkMethod = CheckMethod.values()[in.readByte()];
+        this.sourceFileLength = WritableUtils.readVLong(in);
+        this.report = reportType == REPORT_RECORD ? new CheckRecord() : new Text();
+        this.report.readFields(in);
+    }
+}
@@ -0,0 +1,72 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+import java.io.IOException;
+import java.util.EnumSet;
+
+/**
+ * 关联源文件列表和上一次的检查报告：已经有确定结果的源文件直接沿用上一次的检查报告，
+ * 没有检查报告或者上一次的结果为UNCHECKED、TARGET_FILESYSTEM_ERROR的源文件输出到remaining-r-xxxxx中重新检查。
+ * 不在本次源文件列表中的检查报告会被丢弃。
+ */
+public class ResumeJoinReducer extends Reducer<Text, ResumeEntry, Text, Writable> {
+    public static final String REMAINING_NAMED_OUTPUT = "remaining";
+    public static final String RESUMED_FILE_PREFIX = "resumed-";
+    public static final String RESUME_GROUP = "Resume";
+    public static final String RESUMED_COUNTER = "RESUMED";
+    public static final String REMAINING_COUNTER = "REMAINING";
+
+    // 这些结果需要重新检查
+    private static final EnumSet<CheckResult> RECHECK_RESULTS = EnumSet.of(CheckResult.UNCHECKED,
+            CheckResult.TARGET_FILESYSTEM_ERROR);
+
+    private MultipleOutputs<Text, Writable> multipleOutputs = null;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        this.multipleOutputs = new MultipleOutputs<>(context);
+    }
+
+    @Override
+    protected void reduce(Text key, Iterable<ResumeEntry> values, Context context)
+            throws IOException, InterruptedException {
+        String listedLine = null;
+        ResumeEntry finished = null;
+        for (ResumeEntry value : values) {
+            if (value.isListed()) {
+                listedLine = value.getListedLine();
+            } else if (null == finished && !RECHECK_RESULTS.contains(value.getCheckResult())) {
+                // Hadoop会复用value对象，这里需要拷贝一份
+                finished = WritableUtils.clone(value, context.getConfiguration());
+            }
+        }
+        if (null == listedLine) {
+            return;
+        }
+
+        if (null != finished) {
+            CheckSummary.count(context, finished.getCheckResult(), finished.getCheckMethod(),
+                    finished.getSourceFileLength());
+            context.getCounter(RESUME_GROUP, RESUMED_COUNTER).increment(1);
+            context.write(key, finished.getReport());
+        } else {
+            context.getCounter(RESUME_GROUP, REMAINING_COUNTER).increment(1);
+            this.multipleOutputs.write(REMAINING_NAMED_OUTPUT, NullWritable.get(), new Text(listedLine));
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (null != this.multipleOutputs) {
+            this.multipleOutputs.close();
+        }
+        super.cleanup(context);
+    }
+}
@@ -0,0 +1,37 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * 续跑时读取源文件列表，按检查报告的key输出每一行。
+ */
+public class ResumeListMapper extends Mapper<LongWritable, Text, Text, ResumeEntry> {
+    private boolean binary;
+    private String sourceRoot;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        this.binary = CheckReportWriter.isBinary(context.getConfiguration());
+        this.sourceRoot = context.getConfiguration().get(Constants.SOURCE_WORK_DIR_KEY);
+    }
+
+    @Override
+    protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+        String sourceFilePathStr = value.toString().trim();
+        if (sourceFilePathStr.isEmpty()) {
+            return;
+        }
+        // 与CheckReportWriter输出的key保持一致
+        String reportKey = sourceFilePathStr;
+        if (this.binary) {
+            reportKey = CheckRecord.relativize(new Path(sourceFilePathStr).toString(), this.sourceRoot);
+        }
+        context.write(new Text(reportKey), ResumeEntry.listed(sourceFilePathStr));
+    }
+}
@@ -0,0 +1,78 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 续跑时读取上一次的检查报告，文本格式按行读取，二进制格式按SequenceFile读取。
+ */
+public class ResumeReportMapper extends Mapper<Writable, Writable, Text, ResumeEntry> {
+    private static final Logger LOG = LoggerFactory.getLogger(ResumeReportMapper.class);
+
+    private String sourceRoot;
+    private String targetRoot;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        this.sourceRoot = context.getConfiguration().get(Constants.SOURCE_WORK_DIR_KEY);
+        this.targetRoot = context.getConfiguration().get(Constants.TARGET_WORK_DIR_KEY);
+    }
+
+    @Override
+    protected void map(Writable key, Writable value, Context context) throws IOException, InterruptedException {
+        if (value instanceof CheckRecord) {
+            CheckReport checkReport = ((CheckRecord) value).toReport(key.toString(), this.sourceRoot,
+                    this.targetRoot);
+            context.write((Text) key, ResumeEntry.reported(checkReport.getCheckResult(),
+                    checkReport.getCheckMethod(), checkReport.getSourceFileLength(), value));
+            return;
+        }
+
+        // 文本格式的检查报告：key和检查报告以制表符分隔
+        String line = value.toString();
+        int separatorIndex = line.indexOf('\t');
+        ResumeEntry resumeEntry = separatorIndex < 0 ? null : parse(line.substring(separatorIndex + 1));
+        if (null == resumeEntry) {
+            LOG.warn("Skip the unrecognized report line: {}.", line);
+            return;
+        }
+        context.write(new Text(line.substring(0, separatorIndex)), resumeEntry);
+    }
+
+    /**
+     * 检查报告以",检查结果,'结果描述',校验方式"结尾，抽样检查的报告之后还有一列抽样覆盖的比例，
+     * 路径中可能包含逗号，因此从后往前解析。
+     */
+    private static ResumeEntry parse(String reportText) {
+        int methodEnd = reportText.length();
+        int methodIndex = reportText.lastIndexOf(',');
+        if (methodIndex >= 0 && reportText.startsWith(CheckMethod.SAMPLED.name() + ",",
+                reportText.lastIndexOf(',', methodIndex - 1) + 1)) {
+            methodEnd = methodIndex;
+            methodIndex = reportText.lastIndexOf(',', methodIndex - 1);
+        }
+        if (methodIndex < 0) {
+            return null;
+        }
+        CheckMethod checkMethod;
+        try {
+            checkMethod = CheckMethod.valueOf(reportText.substring(methodIndex + 1, methodEnd));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String head = reportText.substring(0, methodIndex);
+        for (CheckResult checkResult : CheckResult.values()) {
+            if (head.endsWith("," + checkResult.name() + ",'" + checkResult.getDescription() + "'")) {
+                // 文本格式中没有源文件长度
+                return ResumeEntry.reported(checkResult, checkMethod, -1, new Text(reportText));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 抽样检查的计划：按比例选择需要检查的文件，大文件只比较随机位置的若干段数据。
+ * 是否选中以及段的位置只由随机种子和源文件相对于源工作目录的路径决定，与任务的切分和检查顺序无关，
+ * 因此种子不变时重新运行会抽到相同的文件和数据段。
+ * 大文件等分成rangeCount个区间，每个区间中随机放置一段，各段互不重叠，并且均匀覆盖整个文件。
+ */
+public class SamplingPlan {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final double fraction;
+    private final long seed;
+    private final long rangeThreshold;          // 不大于0时总是比较完整的文件
+    private final int rangeCount;
+    private final long rangeSize;
+
+    public SamplingPlan(Configuration configuration) {
+        this.fraction = configuration.getDouble(Constants.SAMPLE_FRACTION_KEY, Constants.DEFAULT_SAMPLE_FRACTION);
+        this.seed = configuration.getLong(Constants.SAMPLE_SEED_KEY, Constants.DEFAULT_SAMPLE_SEED);
+        this.rangeThreshold = configuration.getLong(Constants.SAMPLE_RANGE_THRESHOLD_KEY,
+                Constants.DEFAULT_SAMPLE_RANGE_THRESHOLD);
+        this.rangeCount = configuration.getInt(Constants.SAMPLE_RANGE_COUNT_KEY, Constants.DEFAULT_SAMPLE_RANGE_COUNT);
+        this.rangeSize = configuration.getLong(Constants.SAMPLE_RANGE_SIZE_KEY, Constants.DEFAULT_SAMPLE_RANGE_SIZE);
+        if (!(this.fraction > 0 && this.fraction <= 1)) {
+            throw new IllegalArgumentException(String.format("The %s must be in (0, 1], but it is %s.",
+                    Constants.SAMPLE_FRACTION_KEY, this.fraction));
+        }
+        if (this.rangeCount <= 0 || this.rangeSize <= 0) {
+            throw new IllegalArgumentException(String.format("The %s and %s must be positive.",
+                    Constants.SAMPLE_RANGE_COUNT_KEY, Constants.SAMPLE_RANGE_SIZE_KEY));
+        }
+    }
+
+    /**
+     * 是否抽样检查，即只检查部分文件或者只比较大文件的部分数据。
+     */
+    public boolean isEnabled() {
+        return this.fraction < 1 || this.rangeThreshold > 0;
+    }
+
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * relativePath为源文件相对于源工作目录的路径。
+     */
+    public boolean isSelected(String relativePath) {
+        if (this.fraction >= 1) {
+            return true;
+        }
+        // 取哈希值的高53位映射到[0, 1)
+        return (this.hash(relativePath) >>> 11) * 0x1.0p-53 < this.fraction;
+    }
+
+    /**
+     * 返回需要比较的各段数据的起始位置，按位置从小到大排列，每段的长度都为rangeSize。
+     * 文件不超过阈值，或者抽样的总长度不小于文件长度时返回null，即比较完整的文件。
+     */
+    public long[] getRangePositions(String relativePath, long fileLength) {
+        if (this.rangeThreshold <= 0 || fileLength <= this.rangeThreshold
+                || fileLength / this.rangeCount <= this.rangeSize) {
+            return null;
+        }
+        Random random = new Random(this.hash(relativePath));
+        long stride = fileLength / this.rangeCount;
+        long[] positions = new long[this.rangeCount];
+        for (int i = 0; i < this.rangeCount; i++) {
+            // 最后一个区间包含除不尽的部分
+            long intervalLength = i == this.rangeCount - 1 ? fileLength - stride * i : stride;
+            positions[i] = stride * i + nextLong(random, intervalLength - this.rangeSize + 1);
+        }
+        return positions;
+    }
+
+    /**
+     * 种子和路径的64位哈希：FNV-1a之后再经过MurmurHash3的fmix64打散，不依赖JVM的String.hashCode。
+     */
+    private long hash(String relativePath) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : relativePath.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= this.seed * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 返回[0, bound)中均匀分布的随机数，java.util.Random的算法是固定的，不同的JVM上结果相同。
+     */
+    private static long nextLong(Random random, long bound) {
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+}
@@ -0,0 +1,139 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 由作业自己列出源目录时使用的Mapper，每一行输入是一个需要列出的源目录。
+ * 每个map任务在本地按广度优先列出分配到的子树，列出的文件和目录直接进行检查；
+ * 列出的条目数达到上限以后，剩余未列出的子目录输出到dirs-m-xxxxx文件中，交给下一轮的map任务继续列出。
+ */
+public class SourceListingMapper extends Mapper<Object, Text, Text, Writable> {
+    private static final Logger LOG = LoggerFactory.getLogger(SourceListingMapper.class);
+
+    // 输出下一轮需要列出的子目录的named output
+    public static final String DIRS_NAMED_OUTPUT = "dirs";
+
+    private FileChecker fileChecker = null;
+    private CheckReportWriter checkReportWriter = null;
+    private CheckPipeline checkPipeline = null;
+    private MultipleOutputs<Text, Writable> multipleOutputs = null;
+    private long maxEntries;
+    private long listedEntries = 0;
+    private final Deque<Path> pendingDirectories = new ArrayDeque<>();
+
+    @Override
+    protected void setup(final Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        this.fileChecker = new FileChecker(context.getConfiguration());
+        this.checkReportWriter = new CheckReportWriter(context, context::write);
+        this.multipleOutputs = new MultipleOutputs<>(context);
+        if (null != context.getConfiguration().get(Constants.CATALOG_OUTPUT_KEY)) {
+            this.fileChecker.setChecksumRecorder(new ChecksumCatalogWriter(this.multipleOutputs));
+        }
+
+        this.maxEntries = context.getConfiguration().getLong(Constants.SOURCE_LISTING_TASK_MAX_ENTRIES_KEY,
+                Constants.DEFAULT_SOURCE_LISTING_TASK_MAX_ENTRIES);
+        int inFlightWindow = context.getConfiguration().getInt(Constants.IN_FLIGHT_WINDOW_KEY,
+                Constants.DEFAULT_IN_FLIGHT_WINDOW);
+        if (inFlightWindow > 1) {
+            this.checkPipeline = new CheckPipeline(inFlightWindow, this.checkReportWriter);
+        }
+    }
+
+    @Override
+    protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+        String directoryStr = value.toString().trim();
+        if (directoryStr.isEmpty()) {
+            return;
+        }
+        this.pendingDirectories.addLast(new Path(directoryStr));
+        this.listPendingDirectories(context);
+    }
+
+    private void listPendingDirectories(Context context) throws IOException, InterruptedException {
+        FileSystem sourceFs = this.fileChecker.getSourceFs();
+        while (!this.pendingDirectories.isEmpty() && this.listedEntries < this.maxEntries) {
+            Path directory = this.pendingDirectories.pollFirst();
+            LOG.info("Listing the source directory [{}].", directory);
+            RemoteIterator<FileStatus> iterator;
+            try {
+                iterator = sourceFs.listStatusIterator(directory);
+            } catch (FileNotFoundException e) {
+                // 目录在上一轮列出以后被删除了，检查它的时候已经输出过检查报告
+                LOG.warn("The source directory [{}] is missing.", directory, e);
+                continue;
+            }
+            while (iterator.hasNext()) {
+                FileStatus fileStatus = iterator.next();
+                this.listedEntries++;
+                if (fileStatus.isDirectory()) {
+                    this.pendingDirectories.addLast(fileStatus.getPath());
+                }
+                this.check(fileStatus, context);
+                context.progress();
+            }
+        }
+    }
+
+    private void check(final FileStatus sourceFileStatus, Context context) throws IOException, InterruptedException {
+        String sourceFilePathStr = sourceFileStatus.getPath().toString();
+        if (!this.fileChecker.isSelected(sourceFilePathStr)) {
+            // 抽样检查时没有被抽中的文件不输出检查报告，目录仍然会被继续列出
+            CheckSummary.countSkipped(context);
+            return;
+        }
+        if (null != this.checkPipeline) {
+            this.checkPipeline.submit(sourceFilePathStr, () -> this.fileChecker.check(sourceFileStatus));
+            return;
+        }
+        CheckReport checkReport = this.fileChecker.check(sourceFileStatus);
+        this.checkReportWriter.write(sourceFilePathStr, checkReport);
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        LOG.info("Begin to clean up the source listing mapper.");
+        try {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.flush();
+            }
+            // 超过上限以后剩余的子目录交给下一轮
+            if (!this.pendingDirectories.isEmpty()) {
+                LOG.info("Listed {} entries, leave {} directories to the next round.", this.listedEntries,
+                        this.pendingDirectories.size());
+            }
+            for (Path directory : this.pendingDirectories) {
+                this.multipleOutputs.write(DIRS_NAMED_OUTPUT, new Text(directory.toString()), NullWritable.get());
+            }
+            // 汇总本任务各阶段的耗时
+            this.fileChecker.getCheckMetrics().flush(context);
+        } finally {
+            if (null != this.checkPipeline) {
+                this.checkPipeline.close();
+            }
+            if (null != this.multipleOutputs) {
+                this.multipleOutputs.close();
+            }
+            if (null != this.fileChecker) {
+                this.fileChecker.close();
+            }
+        }
+        super.cleanup(context);
+    }
+}
@@ -0,0 +1,148 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import java.io.IOException;
+
+/**
+ * 通过{@link RequestThrottler}限制检查用到的元数据请求和读取请求的速率，并重试暂时性的失败。
+ * 打开文件和positional read是幂等的，限速并重试；顺序读取失败时无法从断点重试，只根据失败调整速率。
+ * 其他操作直接交给被包装的文件系统，关闭时也不会关闭被包装的文件系统，因为它来自FileSystem的缓存。
+ */
+public class ThrottledFileSystem extends FilterFileSystem {
+    private final RequestThrottler requestThrottler;
+
+    public ThrottledFileSystem(FileSystem fs, RequestThrottler requestThrottler) {
+        super(fs);
+        this.requestThrottler = requestThrottler;
+    }
+
+    public RequestThrottler getRequestThrottler() {
+        return requestThrottler;
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path f) throws IOException {
+        return this.requestThrottler.execute("getFileStatus", f, () -> super.getFileStatus(f));
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) throws IOException {
+        return this.requestThrottler.execute("listStatus", f, () -> super.listStatus(f));
+    }
+
+    @Override
+    public RemoteIterator<FileStatus> listStatusIterator(Path f) throws IOException {
+        final RemoteIterator<FileStatus> iterator = this.requestThrottler.execute("listStatusIterator", f,
+                () -> super.listStatusIterator(f));
+        // 翻页的请求发生在hasNext中，中途失败无法从断点重试，只根据失败调整速率
+        return new RemoteIterator<FileStatus>() {
+            @Override
+            public boolean hasNext() throws IOException {
+                try {
+                    return iterator.hasNext();
+                } catch (IOException e) {
+                    requestThrottler.reportFailure(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public FileStatus next() throws IOException {
+                try {
+                    return iterator.next();
+                } catch (IOException e) {
+                    requestThrottler.reportFailure(e);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    @Override
+    public FileChecksum getFileChecksum(Path f) throws IOException {
+        return this.requestThrottler.execute("getFileChecksum", f, () -> super.getFileChecksum(f));
+    }
+
+    @Override
+    public FSDataInputStream open(Path f, int bufferSize) throws IOException {
+        FSDataInputStream inputStream = this.requestThrottler.execute("open", f, () -> super.open(f, bufferSize));
+        return new FSDataInputStream(new ThrottledInputStream(f, inputStream));
+    }
+
+    @Override
+    public void close() {
+        // 被包装的文件系统由FileSystem的缓存管理
+    }
+
+    /**
+     * 对读取请求限速的输入流，抽样检查时通过positional read读取目的文件中的若干段数据。
+     */
+    private final class ThrottledInputStream extends FSInputStream {
+        private final Path path;
+        private final FSDataInputStream inputStream;
+
+        private ThrottledInputStream(Path path, FSDataInputStream inputStream) {
+            this.path = path;
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+            return requestThrottler.execute("read", this.path,
+                    () -> this.inputStream.read(position, buffer, offset, length));
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return this.inputStream.read();
+            } catch (IOException e) {
+                requestThrottler.reportFailure(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                return this.inputStream.read(buffer, offset, length);
+            } catch (IOException e) {
+                requestThrottler.reportFailure(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public void seek(long pos) throws IOException {
+            this.inputStream.seek(pos);
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return this.inputStream.getPos();
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPos) throws IOException {
+            return this.inputStream.seekToNewSource(targetPos);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.inputStream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.inputStream.close();
+        }
+    }
+}
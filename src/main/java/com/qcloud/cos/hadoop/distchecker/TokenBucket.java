@@ -0,0 +1,74 @@
+package com.qcloud.cos.hadoop.distchecker;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶，每秒生成rate个令牌，最多积累一秒的令牌，可以在多个线程中同时使用。
+ * 一次可以申请超过桶容量的令牌，不足的部分记为欠账，由后面的申请者等待偿还，
+ * 因此按读取的字节数申请令牌时也能保证平均速率。rate不大于0时不限速。
+ */
+public class TokenBucket {
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double rate) {
+        this.rate = rate;
+        this.tokens = Math.max(rate, 0);
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * 调整速率，已经积累的令牌不超过新的桶容量。
+     */
+    public synchronized void setRate(double rate) {
+        this.refill(System.nanoTime());
+        this.rate = rate;
+        if (rate > 0) {
+            this.tokens = Math.min(this.tokens, rate);
+        }
+    }
+
+    /**
+     * 申请permits个令牌，令牌不足时阻塞等待，返回等待的纳秒数。
+     */
+    public long acquire(long permits) throws InterruptedIOException {
+        long waitNanos = this.reserve(permits);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Waiting for the tokens is interrupted.");
+            }
+        }
+        return waitNanos;
+    }
+
+    private synchronized long reserve(long permits) {
+        if (this.rate <= 0) {
+            return 0;
+        }
+        long nowNanos = System.nanoTime();
+        this.refill(nowNanos);
+        // 先扣除令牌再等待，并发的申请者按顺序排队
+        this.tokens -= permits;
+        if (this.tokens >= 0) {
+            return 0;
+        }
+        return (long) (-this.tokens / this.rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill(long nowNanos) {
+        if (this.rate > 0) {
+            double elapsedSeconds = (nowNanos - this.lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            this.tokens = Math.min(this.rate, this.tokens + elapsedSeconds * this.rate);
+        }
+        this.lastRefillNanos = nowNanos;
+    }
+}
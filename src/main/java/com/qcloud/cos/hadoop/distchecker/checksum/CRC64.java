@@ -1,5 +1,6 @@
 package com.qcloud.cos.hadoop.distchecker.checksum;
 
+import java.nio.ByteBuffer;
 import java.util.zip.Checksum;
 
 public class CRC64 implements Checksum {
@@ -107,6 +108,23 @@ public class CRC64 implements Checksum {
         }
     }
 
+    /**
+     * Update CRC64 with the remaining bytes of buffer, the position of buffer is
+     * advanced to its limit.
+     **/
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        this.value = ~this.value;
+        while (buffer.hasRemaining()) {
+            this.value = table[((int) (this.value ^ buffer.get())) & 0xff] ^ (this.value >>> 8);
+        }
+        this.value = ~this.value;
+    }
+
     @Override
     public void reset() {
         this.value = 0;
@@ -0,0 +1,186 @@
+package com.qcloud.cos.hadoop.distchecker.checksum;
+
+/**
+ * CRC64 combine engine which precomputes the GF(2) operators of appending 2^k zero
+ * bytes once per JVM. Combining two CRC64 values then takes at most one matrix
+ * times vector product per set bit of the length, without any allocation.
+ * The results are the same as {@link CRC64#combine(long, long, long)}.
+ **/
+public final class CRC64Combiner {
+
+    private final static long POLY = (long) 0xc96c5795d7870f42L; // ECMA-182
+
+    private static final int GF2_DIM = 64; /* dimension of GF(2) vectors (length of CRC) */
+
+    /* ZEROS_OPERATORS[k] is the operator of appending 2^k zero bytes. */
+    private static final long[][] ZEROS_OPERATORS = new long[64][];
+
+    static {
+        long[] odd = new long[GF2_DIM];
+        long[] even = new long[GF2_DIM];
+
+        // put operator for one zero bit in odd
+        odd[0] = POLY;
+        long row = 1;
+        for (int n = 1; n < GF2_DIM; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // put operator for two zero bits in even
+        gf2MatrixSquare(even, odd);
+        // put operator for four zero bits in odd
+        gf2MatrixSquare(odd, even);
+        // put operator for one zero byte in the first slot
+        ZEROS_OPERATORS[0] = new long[GF2_DIM];
+        gf2MatrixSquare(ZEROS_OPERATORS[0], odd);
+
+        for (int k = 1; k < ZEROS_OPERATORS.length; k++) {
+            ZEROS_OPERATORS[k] = new long[GF2_DIM];
+            gf2MatrixSquare(ZEROS_OPERATORS[k], ZEROS_OPERATORS[k - 1]);
+        }
+    }
+
+    /* Operator of appending length zero bytes, only set for the fixed-length instances. */
+    private final long length;
+    private final long[] operator;
+
+    private CRC64Combiner(long length, long[] operator) {
+        this.length = length;
+        this.operator = operator;
+    }
+
+    /**
+     * Create a combiner for the second blocks of a fixed length, for example the
+     * range size of a file, which applies a single precomputed operator per call.
+     **/
+    public static CRC64Combiner forLength(long length) {
+        return new CRC64Combiner(length, zerosOperator(length));
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Return the CRC-64 of two sequential blocks, where crc2 is the CRC-64 of the
+     * second block which has the length of this combiner.
+     **/
+    public long combine(long crc1, long crc2) {
+        // degenerate case.
+        if (this.length == 0) {
+            return crc1;
+        }
+        return gf2MatrixTimes(this.operator, crc1) ^ crc2;
+    }
+
+    /**
+     * Return the CRC-64 of two sequential blocks, where crc1 is the CRC-64 of the
+     * first block, crc2 is the CRC-64 of the second block, and len2 is the length
+     * of the second block.
+     **/
+    public static long combine(long crc1, long crc2, long len2) {
+        // degenerate case.
+        if (len2 == 0) {
+            return crc1;
+        }
+        return shift(crc1, len2) ^ crc2;
+    }
+
+    /**
+     * Return the CRC-64 of count sequential blocks, where crcs[i] is the CRC-64 of
+     * the i-th block and lengths[i] is its length.
+     **/
+    public static long combine(long[] crcs, long[] lengths, int count) {
+        if (count > crcs.length || count > lengths.length) {
+            throw new ArrayIndexOutOfBoundsException(count);
+        }
+        long crc = 0;
+        long lastLength = -1;
+        long[] lastOperator = null;
+        for (int i = 0; i < count; i++) {
+            long len = lengths[i];
+            if (len == 0) {
+                // degenerate case.
+                continue;
+            }
+            if (len == lastLength) {
+                // fixed size ranges reuse the operator of the previous block
+                crc = gf2MatrixTimes(lastOperator, crc) ^ crcs[i];
+            } else if (i + 1 < count && lengths[i + 1] == len) {
+                lastLength = len;
+                lastOperator = zerosOperator(len);
+                crc = gf2MatrixTimes(lastOperator, crc) ^ crcs[i];
+            } else {
+                crc = shift(crc, len) ^ crcs[i];
+            }
+        }
+        return crc;
+    }
+
+    public static long combine(long[] crcs, long[] lengths) {
+        if (crcs.length != lengths.length) {
+            throw new IllegalArgumentException(String.format(
+                    "The number of crcs %d does not match the number of lengths %d.", crcs.length, lengths.length));
+        }
+        return combine(crcs, lengths, crcs.length);
+    }
+
+    /*
+     * Apply len zero bytes to crc.
+     */
+    private static long shift(long crc, long len) {
+        int k = 0;
+        while (len != 0 && crc != 0) {
+            if ((len & 1) == 1) {
+                crc = gf2MatrixTimes(ZEROS_OPERATORS[k], crc);
+            }
+            len >>>= 1;
+            k++;
+        }
+        return crc;
+    }
+
+    private static long[] zerosOperator(long len) {
+        long[] operator = null;
+        int k = 0;
+        while (len != 0) {
+            if ((len & 1) == 1) {
+                if (null == operator) {
+                    operator = ZEROS_OPERATORS[k].clone();
+                } else {
+                    long[] product = new long[GF2_DIM];
+                    for (int n = 0; n < GF2_DIM; n++) {
+                        product[n] = gf2MatrixTimes(ZEROS_OPERATORS[k], operator[n]);
+                    }
+                    operator = product;
+                }
+            }
+            len >>>= 1;
+            k++;
+        }
+        if (null == operator) {
+            // identity operator for zero length
+            operator = new long[GF2_DIM];
+            for (int n = 0; n < GF2_DIM; n++) {
+                operator[n] = 1L << n;
+            }
+        }
+        return operator;
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        while (vec != 0) {
+            int idx = Long.numberOfTrailingZeros(vec);
+            sum ^= mat[idx];
+            vec &= vec - 1;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < GF2_DIM; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.qcloud.cos.hadoop.distchecker.checksum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * CRC64-ECMA which folds the input with the carry-less multiply instruction
+ * (PCLMULQDQ) in the native library libcrc64ecma. The library is loaded from
+ * java.library.path once per JVM and verified bit for bit against
+ * {@link SlicingCRC64} before use. When the library is missing, the CPU does
+ * not support the instruction or the self-test fails, and for short inputs where
+ * the JNI call does not pay off, the bytes are consumed by {@link SlicingCRC64}.
+ **/
+public class NativeCRC64 extends SlicingCRC64 {
+    private static final Logger LOG = LoggerFactory.getLogger(NativeCRC64.class);
+
+    public static final String LIBRARY_NAME = "crc64ecma";
+
+    /* Inputs shorter than this are not worth a JNI call. */
+    private static final int NATIVE_MIN_LENGTH = 256;
+
+    /* CRC-64/XZ check value of "123456789". */
+    private static final long CHECK_VALUE = 0x995dc9bbdf1939faL;
+
+    private static final boolean AVAILABLE = load();
+
+    public NativeCRC64() {
+        super();
+    }
+
+    public NativeCRC64(long value) {
+        super(value);
+    }
+
+    /**
+     * Whether the native library is loaded and has passed the self-test.
+     **/
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        if (!AVAILABLE || len < NATIVE_MIN_LENGTH) {
+            super.update(b, off, len);
+            return;
+        }
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        this.value = ~updateBytes(~this.value, b, off, len);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (!AVAILABLE || limit - position < NATIVE_MIN_LENGTH) {
+            super.update(buffer);
+            return;
+        }
+        if (buffer.hasArray()) {
+            this.value = ~updateBytes(~this.value, buffer.array(), buffer.arrayOffset() + position,
+                    limit - position);
+        } else {
+            this.value = ~updateDirect(~this.value, buffer, position, limit - position);
+        }
+        buffer.position(limit);
+    }
+
+    private static boolean load() {
+        try {
+            System.loadLibrary(LIBRARY_NAME);
+        } catch (UnsatisfiedLinkError | SecurityException e) {
+            LOG.debug("The native crc64 library is not loaded, use the pure-Java crc64.", e);
+            return false;
+        }
+        try {
+            if (!isSupported()) {
+                LOG.info("The CPU does not support the carry-less multiply instruction, use the pure-Java crc64.");
+                return false;
+            }
+            if (!selfTest()) {
+                LOG.warn("The native crc64 does not match the pure-Java crc64, use the pure-Java crc64.");
+                return false;
+            }
+        } catch (UnsatisfiedLinkError e) {
+            LOG.warn("The native crc64 library is incompatible, use the pure-Java crc64.", e);
+            return false;
+        }
+        LOG.info("Use the native crc64 library {}.", System.mapLibraryName(LIBRARY_NAME));
+        return true;
+    }
+
+    /*
+     * Compare with the pure-Java engine on every length up to a few folding
+     * blocks at all alignments, on large inputs, and on direct buffers.
+     */
+    private static boolean selfTest() {
+        byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+        if (~updateBytes(~0L, check, 0, check.length) != CHECK_VALUE) {
+            return false;
+        }
+
+        Random random = new Random(0);
+        byte[] data = new byte[(1 << 20) + 64];
+        random.nextBytes(data);
+        for (int len = 0; len <= 1024; len++) {
+            int off = len % 16;
+            long crc = random.nextLong();
+            if (updateBytes(crc, data, off, len) != SlicingCRC64.update(crc, data, off, len)) {
+                return false;
+            }
+        }
+        for (int len : new int[]{4095, 65536, 1 << 20}) {
+            long crc = random.nextLong();
+            if (updateBytes(crc, data, 7, len) != SlicingCRC64.update(crc, data, 7, len)) {
+                return false;
+            }
+        }
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(8192);
+        direct.put(data, 0, direct.capacity());
+        for (int len : new int[]{0, 63, 64, 255, 4096, 8191}) {
+            long crc = random.nextLong();
+            if (updateDirect(crc, direct, 1, len) != SlicingCRC64.update(crc, data, 1, len)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static native boolean isSupported();
+
+    /*
+     * Update a pre-inverted crc register with len bytes of b starting from off.
+     */
+    private static native long updateBytes(long crc, byte[] b, int off, int len);
+
+    /*
+     * Update a pre-inverted crc register with len bytes of the direct buffer
+     * starting from the absolute index off.
+     */
+    private static native long updateDirect(long crc, ByteBuffer buffer, int off, int len);
+}
@@ -0,0 +1,236 @@
+package com.qcloud.cos.hadoop.distchecker.checksum;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * Table-driven CRC64-ECMA which consumes 16 (or 8) bytes per iteration using the
+ * slicing-by-N technique. The result is bit-exact with {@link CRC64} and with the
+ * x-cos-hash-crc64ecma value returned by COS.
+ **/
+public class SlicingCRC64 implements Checksum {
+
+    private final static long POLY = (long) 0xc96c5795d7870f42L; // ECMA-182
+
+    private final static int SLICES = 16;
+
+    /* table[k][n] is the CRC64 of byte n followed by k zero bytes. */
+    private final static long[][] table;
+
+    /* Current CRC value, also updated by NativeCRC64. */
+    long value;
+
+    static {
+        table = new long[SLICES][256];
+
+        for (int n = 0; n < 256; n++) {
+            long crc = n;
+            for (int k = 0; k < 8; k++) {
+                if ((crc & 1) == 1) {
+                    crc = (crc >>> 1) ^ POLY;
+                } else {
+                    crc = (crc >>> 1);
+                }
+            }
+            table[0][n] = crc;
+        }
+
+        for (int n = 0; n < 256; n++) {
+            long crc = table[0][n];
+            for (int k = 1; k < SLICES; k++) {
+                crc = table[0][(int) (crc & 0xff)] ^ (crc >>> 8);
+                table[k][n] = crc;
+            }
+        }
+    }
+
+    public SlicingCRC64() {
+        this.value = 0;
+    }
+
+    public SlicingCRC64(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Get long representation of current CRC64 value.
+     **/
+    @Override
+    public long getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void update(int b) {
+        long crc = ~this.value;
+        crc = table[0][(int) ((crc ^ b) & 0xff)] ^ (crc >>> 8);
+        this.value = ~crc;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        if (null == b) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        this.value = ~update(~this.value, b, off, len);
+    }
+
+    public void update(byte[] b) {
+        update(b, 0, b.length);
+    }
+
+    /**
+     * Update the CRC64 with the remaining bytes of buffer, the position of buffer
+     * is advanced to its limit. Direct buffers are consumed in place without
+     * copying into a heap array.
+     **/
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            this.value = ~update(~this.value, buffer.array(), buffer.arrayOffset() + position, limit - position);
+        } else {
+            this.value = ~update(~this.value, buffer, position, limit - position);
+        }
+        buffer.position(limit);
+    }
+
+    @Override
+    public void reset() {
+        this.value = 0;
+    }
+
+    /*
+     * Update a pre-inverted crc register with len bytes of b starting from off.
+     */
+    static long update(long crc, byte[] b, int off, int len) {
+        final long[] t0 = table[0], t1 = table[1], t2 = table[2], t3 = table[3];
+        final long[] t4 = table[4], t5 = table[5], t6 = table[6], t7 = table[7];
+        final long[] t8 = table[8], t9 = table[9], t10 = table[10], t11 = table[11];
+        final long[] t12 = table[12], t13 = table[13], t14 = table[14], t15 = table[15];
+
+        // slicing-by-16
+        while (len >= 16) {
+            long w1 = crc ^ readLongLE(b, off);
+            long w2 = readLongLE(b, off + 8);
+            crc = t15[(int) (w1 & 0xff)]
+                    ^ t14[(int) ((w1 >>> 8) & 0xff)]
+                    ^ t13[(int) ((w1 >>> 16) & 0xff)]
+                    ^ t12[(int) ((w1 >>> 24) & 0xff)]
+                    ^ t11[(int) ((w1 >>> 32) & 0xff)]
+                    ^ t10[(int) ((w1 >>> 40) & 0xff)]
+                    ^ t9[(int) ((w1 >>> 48) & 0xff)]
+                    ^ t8[(int) (w1 >>> 56)]
+                    ^ t7[(int) (w2 & 0xff)]
+                    ^ t6[(int) ((w2 >>> 8) & 0xff)]
+                    ^ t5[(int) ((w2 >>> 16) & 0xff)]
+                    ^ t4[(int) ((w2 >>> 24) & 0xff)]
+                    ^ t3[(int) ((w2 >>> 32) & 0xff)]
+                    ^ t2[(int) ((w2 >>> 40) & 0xff)]
+                    ^ t1[(int) ((w2 >>> 48) & 0xff)]
+                    ^ t0[(int) (w2 >>> 56)];
+            off += 16;
+            len -= 16;
+        }
+
+        // slicing-by-8
+        if (len >= 8) {
+            long w = crc ^ readLongLE(b, off);
+            crc = t7[(int) (w & 0xff)]
+                    ^ t6[(int) ((w >>> 8) & 0xff)]
+                    ^ t5[(int) ((w >>> 16) & 0xff)]
+                    ^ t4[(int) ((w >>> 24) & 0xff)]
+                    ^ t3[(int) ((w >>> 32) & 0xff)]
+                    ^ t2[(int) ((w >>> 40) & 0xff)]
+                    ^ t1[(int) ((w >>> 48) & 0xff)]
+                    ^ t0[(int) (w >>> 56)];
+            off += 8;
+            len -= 8;
+        }
+
+        // byte-at-a-time for the tail
+        while (len > 0) {
+            crc = t0[(int) ((crc ^ b[off]) & 0xff)] ^ (crc >>> 8);
+            off++;
+            len--;
+        }
+
+        return crc;
+    }
+
+    /*
+     * Update a pre-inverted crc register with len bytes of the buffer starting from
+     * the absolute index off, the position of the buffer is not changed.
+     */
+    static long update(long crc, ByteBuffer buffer, int off, int len) {
+        final long[] t0 = table[0], t1 = table[1], t2 = table[2], t3 = table[3];
+        final long[] t4 = table[4], t5 = table[5], t6 = table[6], t7 = table[7];
+        final long[] t8 = table[8], t9 = table[9], t10 = table[10], t11 = table[11];
+        final long[] t12 = table[12], t13 = table[13], t14 = table[14], t15 = table[15];
+
+        ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        // slicing-by-16
+        while (len >= 16) {
+            long w1 = crc ^ b.getLong(off);
+            long w2 = b.getLong(off + 8);
+            crc = t15[(int) (w1 & 0xff)]
+                    ^ t14[(int) ((w1 >>> 8) & 0xff)]
+                    ^ t13[(int) ((w1 >>> 16) & 0xff)]
+                    ^ t12[(int) ((w1 >>> 24) & 0xff)]
+                    ^ t11[(int) ((w1 >>> 32) & 0xff)]
+                    ^ t10[(int) ((w1 >>> 40) & 0xff)]
+                    ^ t9[(int) ((w1 >>> 48) & 0xff)]
+                    ^ t8[(int) (w1 >>> 56)]
+                    ^ t7[(int) (w2 & 0xff)]
+                    ^ t6[(int) ((w2 >>> 8) & 0xff)]
+                    ^ t5[(int) ((w2 >>> 16) & 0xff)]
+                    ^ t4[(int) ((w2 >>> 24) & 0xff)]
+                    ^ t3[(int) ((w2 >>> 32) & 0xff)]
+                    ^ t2[(int) ((w2 >>> 40) & 0xff)]
+                    ^ t1[(int) ((w2 >>> 48) & 0xff)]
+                    ^ t0[(int) (w2 >>> 56)];
+            off += 16;
+            len -= 16;
+        }
+
+        // slicing-by-8
+        if (len >= 8) {
+            long w = crc ^ b.getLong(off);
+            crc = t7[(int) (w & 0xff)]
+                    ^ t6[(int) ((w >>> 8) & 0xff)]
+                    ^ t5[(int) ((w >>> 16) & 0xff)]
+                    ^ t4[(int) ((w >>> 24) & 0xff)]
+                    ^ t3[(int) ((w >>> 32) & 0xff)]
+                    ^ t2[(int) ((w >>> 40) & 0xff)]
+                    ^ t1[(int) ((w >>> 48) & 0xff)]
+                    ^ t0[(int) (w >>> 56)];
+            off += 8;
+            len -= 8;
+        }
+
+        // byte-at-a-time for the tail
+        while (len > 0) {
+            crc = t0[(int) ((crc ^ b.get(off)) & 0xff)] ^ (crc >>> 8);
+            off++;
+            len--;
+        }
+
+        return crc;
+    }
+
+    private static long readLongLE(byte[] b, int off) {
+        return ((long) b[off] & 0xff)
+                | (((long) b[off + 1] & 0xff) << 8)
+                | (((long) b[off + 2] & 0xff) << 16)
+                | (((long) b[off + 3] & 0xff) << 24)
+                | (((long) b[off + 4] & 0xff) << 32)
+                | (((long) b[off + 5] & 0xff) << 40)
+                | (((long) b[off + 6] & 0xff) << 48)
+                | (((long) b[off + 7] & 0xff) << 56);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * CRC64-ECMA (the x-cos-hash-crc64ecma of COS) computed by folding the input
+ * with the carry-less multiply instruction PCLMULQDQ, see "Fast CRC Computation
+ * for Generic Polynomials Using PCLMULQDQ Instruction" by Intel.
+ *
+ * All the functions work on the pre-inverted crc register like
+ * SlicingCRC64.update, the Java side inverts the value before and after.
+ */
+#include <jni.h>
+#include <stddef.h>
+#include <stdint.h>
+#include <string.h>
+
+#if defined(__x86_64__) || defined(__i386__)
+#include <cpuid.h>
+#include <immintrin.h>
+#define CRC64_X86 1
+#endif
+
+#define POLY 0xc96c5795d7870f42ULL /* ECMA-182, reflected */
+
+static uint64_t table[256];
+
+/* reflected constants of x^n mod P for folding 512 and 128 bits */
+static uint64_t k512_high, k512_low, k128_high, k128_low;
+
+static int supported = 0;
+
+/*
+ * x^n mod P in the reflected form, where bit i is the coefficient of x^(63-i).
+ */
+static uint64_t xpow_mod(unsigned int n) {
+    uint64_t r = 1ULL << 63;
+    while (n--) {
+        r = (r & 1) ? (r >> 1) ^ POLY : r >> 1;
+    }
+    return r;
+}
+
+static uint64_t crc64_table(uint64_t crc, const uint8_t *p, size_t len) {
+    while (len--) {
+        crc = table[(crc ^ *p++) & 0xff] ^ (crc >> 8);
+    }
+    return crc;
+}
+
+#ifdef CRC64_X86
+
+/*
+ * Move the 128 bits of x forward by the distance of k, where the low 64 bits of
+ * x are multiplied by the low 64 bits of k and the high by the high.
+ * The product of two reflected operands is shifted by one bit, so the constant
+ * of folding x^d is x^(d-1) mod P.
+ */
+__attribute__((target("pclmul,sse2")))
+static inline __m128i fold(__m128i x, __m128i k) {
+    return _mm_xor_si128(_mm_clmulepi64_si128(x, k, 0x00), _mm_clmulepi64_si128(x, k, 0x11));
+}
+
+__attribute__((target("pclmul,sse2")))
+static uint64_t crc64_clmul(uint64_t crc, const uint8_t *p, size_t len) {
+    if (len < 64) {
+        return crc64_table(crc, p, len);
+    }
+
+    const __m128i k512 = _mm_set_epi64x((long long) k512_low, (long long) k512_high);
+    const __m128i k128 = _mm_set_epi64x((long long) k128_low, (long long) k128_high);
+
+    /* the initial register is xored into the first 8 bytes */
+    __m128i x0 = _mm_xor_si128(_mm_loadu_si128((const __m128i *) p), _mm_cvtsi64_si128((long long) crc));
+    __m128i x1 = _mm_loadu_si128((const __m128i *) (p + 16));
+    __m128i x2 = _mm_loadu_si128((const __m128i *) (p + 32));
+    __m128i x3 = _mm_loadu_si128((const __m128i *) (p + 48));
+    p += 64;
+    len -= 64;
+
+    /* four independent lanes hide the latency of PCLMULQDQ */
+    while (len >= 64) {
+        x0 = _mm_xor_si128(fold(x0, k512), _mm_loadu_si128((const __m128i *) p));
+        x1 = _mm_xor_si128(fold(x1, k512), _mm_loadu_si128((const __m128i *) (p + 16)));
+        x2 = _mm_xor_si128(fold(x2, k512), _mm_loadu_si128((const __m128i *) (p + 32)));
+        x3 = _mm_xor_si128(fold(x3, k512), _mm_loadu_si128((const __m128i *) (p + 48)));
+        p += 64;
+        len -= 64;
+    }
+
+    x0 = _mm_xor_si128(fold(x0, k128), x1);
+    x0 = _mm_xor_si128(fold(x0, k128), x2);
+    x0 = _mm_xor_si128(fold(x0, k128), x3);
+    while (len >= 16) {
+        x0 = _mm_xor_si128(fold(x0, k128), _mm_loadu_si128((const __m128i *) p));
+        p += 16;
+        len -= 16;
+    }
+
+    /*
+     * The folded 128 bits have the same crc as all the bytes before, reduce them
+     * with the table from a zero register, then continue with the tail.
+     */
+    uint8_t folded[16];
+    _mm_storeu_si128((__m128i *) folded, x0);
+    crc = crc64_table(0, folded, sizeof(folded));
+    return crc64_table(crc, p, len);
+}
+
+static int cpu_supports_pclmul(void) {
+    unsigned int eax, ebx, ecx, edx;
+    if (!__get_cpuid(1, &eax, &ebx, &ecx, &edx)) {
+        return 0;
+    }
+    return (ecx & bit_PCLMUL) != 0 && (edx & bit_SSE2) != 0;
+}
+
+#endif
+
+static uint64_t crc64_update(uint64_t crc, const uint8_t *p, size_t len) {
+#ifdef CRC64_X86
+    if (supported) {
+        return crc64_clmul(crc, p, len);
+    }
+#endif
+    return crc64_table(crc, p, len);
+}
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    for (int n = 0; n < 256; n++) {
+        uint64_t crc = (uint64_t) n;
+        for (int k = 0; k < 8; k++) {
+            crc = (crc & 1) ? (crc >> 1) ^ POLY : crc >> 1;
+        }
+        table[n] = crc;
+    }
+    k512_high = xpow_mod(512 + 64 - 1);
+    k512_low = xpow_mod(512 - 1);
+    k128_high = xpow_mod(128 + 64 - 1);
+    k128_low = xpow_mod(128 - 1);
+#ifdef CRC64_X86
+    supported = cpu_supports_pclmul();
+#endif
+    return JNI_VERSION_1_6;
+}
+
+JNIEXPORT jboolean JNICALL Java_com_qcloud_cos_hadoop_distchecker_checksum_NativeCRC64_isSupported(
+        JNIEnv *env, jclass clazz) {
+    return supported ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jlong JNICALL Java_com_qcloud_cos_hadoop_distchecker_checksum_NativeCRC64_updateBytes(
+        JNIEnv *env, jclass clazz, jlong crc, jbyteArray b, jint off, jint len) {
+    uint8_t *bytes = (uint8_t *) (*env)->GetPrimitiveArrayCritical(env, b, NULL);
+    if (NULL == bytes) {
+        return crc;
+    }
+    uint64_t result = crc64_update((uint64_t) crc, bytes + off, (size_t) len);
+    (*env)->ReleasePrimitiveArrayCritical(env, b, bytes, JNI_ABORT);
+    return (jlong) result;
+}
+
+JNIEXPORT jlong JNICALL Java_com_qcloud_cos_hadoop_distchecker_checksum_NativeCRC64_updateDirect(
+        JNIEnv *env, jclass clazz, jlong crc, jobject buffer, jint off, jint len) {
+    uint8_t *address = (uint8_t *) (*env)->GetDirectBufferAddress(env, buffer);
+    if (NULL == address) {
+        return crc;
+    }
+    return (jlong) crc64_update((uint64_t) crc, address + off, (size_t) len);
+}